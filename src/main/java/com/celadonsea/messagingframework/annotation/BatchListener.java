@@ -0,0 +1,26 @@
+package com.celadonsea.messagingframework.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Listener method invoked with a list of messages. The {@link MessageBody} parameter is a
+ * {@link java.util.List} of the body type and an optional unannotated
+ * {@code List<MessageContext>} parameter receives the context of each element.
+ * The batch is delivered when it reaches {@link #maxSize()} messages or when
+ * {@link #maxWaitMs()} elapsed since its first message arrived. With {@link Retry} a failing
+ * batch is retried as a whole and its messages are dead lettered one by one, a message that cannot
+ * be read is dead lettered alone and left out of the batch.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BatchListener {
+
+    String value() default "";
+
+    int maxSize() default 100;
+
+    long maxWaitMs() default 1000;
+}
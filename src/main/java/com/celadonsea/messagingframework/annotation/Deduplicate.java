@@ -0,0 +1,24 @@
+package com.celadonsea.messagingframework.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Drops redelivered messages of a listener. The message id is read either from a topic
+ * parameter or from a top level field of the JSON payload. Ids are remembered for at least
+ * half of {@link #expireAfterMs()} and at most {@link #capacity()} ids are kept.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Deduplicate {
+
+    String topicParameter() default "";
+
+    String payloadField() default "";
+
+    int capacity() default 100000;
+
+    long expireAfterMs() default 60000;
+}
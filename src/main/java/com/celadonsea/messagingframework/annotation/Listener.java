@@ -10,4 +10,26 @@ import java.lang.annotation.Target;
 public @interface Listener {
 
     String value() default "";
+
+    Priority priority() default Priority.NONE;
+
+    /**
+     * Maximum number of messages per second handled by the listener, 0 for no limit. Throttled
+     * listeners run on worker threads, one message at a time unless the concurrency is set too;
+     * messages waiting for their turn are queued and the oldest are dropped when the queue is full.
+     */
+    double maxRate() default 0;
+
+    /**
+     * Upper bound of the adaptive concurrency limit of the listener, 0 for no limit.
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * Keeps only the newest pending message per topic, or per value of the {@link #conflateBy()}
+     * topic parameter, when the listener falls behind. The listener runs on a worker thread.
+     */
+    boolean conflate() default false;
+
+    String conflateBy() default "";
 }
@@ -10,4 +10,10 @@ import java.lang.annotation.Target;
 public @interface MessageBody {
 
     boolean required() default true;
+
+    /**
+     * The body is decoded on the first call of the {@link java.util.function.Supplier}
+     * parameter instead of before the listener method is invoked.
+     */
+    boolean lazy() default false;
 }
@@ -15,4 +15,10 @@ public @interface MessagingController {
     String topic() default "";
 
     String client();
+
+    /**
+     * Runs every message of the listeners on its own virtual thread, for handlers making blocking
+     * calls. Needs Java 21 or later, on earlier versions the listeners run on the client thread.
+     */
+    boolean virtualThreads() default false;
 }
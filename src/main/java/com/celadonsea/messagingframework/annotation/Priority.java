@@ -0,0 +1,21 @@
+package com.celadonsea.messagingframework.annotation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Dispatch priority of a listener. Listeners without priority run on the thread receiving the
+ * message, the others are queued in the lane of their priority. The high priority lane has a worker
+ * of its own, the other lanes are served in proportion to their weight, higher priorities first.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Priority {
+
+    NONE(0),
+    HIGH(8),
+    NORMAL(4),
+    LOW(1);
+
+    private final int weight;
+}
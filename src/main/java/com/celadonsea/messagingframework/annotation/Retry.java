@@ -0,0 +1,30 @@
+package com.celadonsea.messagingframework.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retry policy of a listener. A message failing in the listener is handed to it again after
+ * {@link #delayMs()}, growing by the {@link #multiplier()} up to {@link #maxDelayMs()}; the
+ * retries are scheduled, they never keep the dispatching thread waiting. After the last attempt,
+ * or right away when the message cannot be read, the message is published under the
+ * {@link #deadLetterTopic()} or written to the {@link #deadLetterSpool()} directory.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Retry {
+
+    int maxAttempts() default 3;
+
+    long delayMs() default 1000;
+
+    double multiplier() default 2;
+
+    long maxDelayMs() default 60000;
+
+    String deadLetterTopic() default "";
+
+    String deadLetterSpool() default "";
+}
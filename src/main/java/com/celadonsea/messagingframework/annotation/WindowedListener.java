@@ -0,0 +1,29 @@
+package com.celadonsea.messagingframework.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Listener method invoked with the count, sum, minimum and maximum of the numeric messages
+ * received in a window, once per window and {@link #key()} value. The method takes a single
+ * {@link com.celadonsea.messagingframework.message.WindowAggregate} parameter. Windows are
+ * tumbling unless a {@link #slide()} shorter than the window is given; durations are written
+ * as {@code 500ms}, {@code 1s}, {@code 5m} or {@code 1h}.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WindowedListener {
+
+    String value() default "";
+
+    String window() default "1s";
+
+    String slide() default "";
+
+    /**
+     * Topic parameter the windows are kept for, by default one window covers every topic.
+     */
+    String key() default "";
+}
@@ -0,0 +1,220 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.core.LogThrottle;
+import com.celadonsea.messagingframework.metrics.LatencyHistogram;
+import com.celadonsea.messagingframework.topic.TopicTemplate;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Forwards the messages of a topic of one client to another client. The target topic is generated
+ * from a template filled with the variables of the source topic, both templates are compiled when
+ * the bridge is built. Payloads are forwarded as received, without deserializing them. The
+ * receiving thread only queues the messages and a forwarding thread publishes them; when the queue
+ * is full the new message is dropped, so the receiving thread never waits for the target. The lag of the bridge is the time between receiving and
+ * publishing a message, only the messages taken by the broker of the target count as forwarded.
+ * <pre>
+ * MessageBridge bridge = MessageBridge.from(factoryClient, "factory/{site}/telemetry/{device}")
+ *     .to(cloudClient, "cloud/{site}/{device}")
+ *     .start();
+ * </pre>
+ */
+@Slf4j
+public class MessageBridge implements AutoCloseable {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    private final MessageClient target;
+
+    private final TopicTemplate sourceTopic;
+
+    private final TopicTemplate targetTopic;
+
+    private final int qos;
+
+    private final BlockingQueue<ForwardedMessage> queue;
+
+    @Getter
+    private final LatencyHistogram lag = new LatencyHistogram();
+
+    private final LongAdder forwardedMessages = new LongAdder();
+
+    private final LongAdder droppedMessages = new LongAdder();
+
+    private final LogThrottle overflowLog = new LogThrottle(10, TimeUnit.SECONDS);
+
+    private final Thread forwarder;
+
+    private final SubscriptionHandle subscriptionHandle;
+
+    private volatile boolean closed;
+
+    private MessageBridge(Builder builder) {
+        this.target = builder.target;
+        this.sourceTopic = TopicTemplate.compile(builder.sourceTopic, builder.source.topicFormat());
+        this.targetTopic = TopicTemplate.compile(builder.targetTopic, builder.target.topicFormat());
+        if (!sourceTopic.getVariables().containsAll(targetTopic.getVariables())) {
+            throw new IllegalArgumentException("Target topic " + builder.targetTopic + " has variables missing from source topic " + builder.sourceTopic);
+        }
+        this.qos = builder.qos;
+        this.queue = new ArrayBlockingQueue<>(builder.bufferSize);
+        this.forwarder = new Thread(this::forward, "messaging-bridge-" + builder.targetTopic);
+        this.forwarder.setDaemon(true);
+        this.forwarder.start();
+        this.subscriptionHandle = builder.source.subscribe(sourceTopic.getSubscription(), this::enqueue);
+    }
+
+    public static Builder from(MessageClient source, String sourceTopic) {
+        return new Builder(source, sourceTopic);
+    }
+
+    public long getForwardedMessages() {
+        return forwardedMessages.sum();
+    }
+
+    /**
+     * @return the number of messages dropped because the queue was full
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    public int getQueuedMessages() {
+        return queue.size();
+    }
+
+    /**
+     * Stops receiving and returns when the queued messages are forwarded, waiting at most 30 seconds.
+     */
+    @Override
+    public void close() {
+        close(DEFAULT_CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops receiving and waits for the queued messages to be forwarded.
+     *
+     * @return false if messages were still queued or being published when the timeout elapsed
+     */
+    public boolean close(long timeout, TimeUnit unit) {
+        if (!closed) {
+            subscriptionHandle.unsubscribe();
+            closed = true;
+        }
+        try {
+            forwarder.join(unit.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (forwarder.isAlive()) {
+            log.warn("Bridge to {} not closed in {} {}, {} messages still queued", targetTopic.getTemplate(), timeout, unit, queue.size());
+            return false;
+        }
+        return true;
+    }
+
+    private void enqueue(String topic, byte[] message) {
+        if (closed) {
+            log.debug("Bridge is closed, message of topic {} dropped", topic);
+            return;
+        }
+        ForwardedMessage forwardedMessage = new ForwardedMessage(topic, message, System.nanoTime());
+        if (!queue.offer(forwardedMessage)) {
+            droppedMessages.increment();
+            long suppressed = overflowLog.tryAcquire();
+            if (suppressed >= 0) {
+                log.warn("Bridge to {} falls behind, message of topic {} dropped ({} drops since the last warning)", targetTopic.getTemplate(), topic, suppressed);
+            }
+            return;
+        }
+        // closed meanwhile: the forwarder may have seen the queue empty and stopped already
+        if (closed && queue.remove(forwardedMessage)) {
+            log.debug("Bridge is closed, message of topic {} dropped", topic);
+        }
+    }
+
+    private void forward() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                ForwardedMessage message = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (message != null) {
+                    publish(message);
+                }
+            } catch (InterruptedException e) {
+                log.warn("Bridge to {} interrupted, {} queued messages dropped", targetTopic.getTemplate(), queue.size());
+                return;
+            }
+        }
+    }
+
+    private void publish(ForwardedMessage message) {
+        try {
+            target.publishOrThrow(targetTopic.generate(sourceTopic.parse(message.topic)), message.payload, qos);
+            forwardedMessages.increment();
+        } catch (RuntimeException e) {
+            log.error("Cannot forward message of topic {}", message.topic, e);
+        }
+        lag.recordNanos(System.nanoTime() - message.receivedNanos);
+    }
+
+    @AllArgsConstructor
+    private static class ForwardedMessage {
+
+        private final String topic;
+
+        private final byte[] payload;
+
+        private final long receivedNanos;
+    }
+
+    public static class Builder {
+
+        private final MessageClient source;
+
+        private final String sourceTopic;
+
+        private MessageClient target;
+
+        private String targetTopic;
+
+        private int qos;
+
+        private int bufferSize = 1000;
+
+        private Builder(MessageClient source, String sourceTopic) {
+            this.source = source;
+            this.sourceTopic = sourceTopic;
+        }
+
+        public Builder to(MessageClient target, String targetTopic) {
+            this.target = target;
+            this.targetTopic = targetTopic;
+            return this;
+        }
+
+        public Builder qos(int qos) {
+            this.qos = qos;
+            return this;
+        }
+
+        public Builder bufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public MessageBridge start() {
+            if (target == null) {
+                throw new IllegalStateException("Bridge from " + sourceTopic + " has no target");
+            }
+            return new MessageBridge(this);
+        }
+    }
+}
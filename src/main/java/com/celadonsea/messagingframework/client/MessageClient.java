@@ -1,23 +1,118 @@
 package com.celadonsea.messagingframework.client;
 
+import com.celadonsea.messagingframework.core.ConnectionException;
+import com.celadonsea.messagingframework.core.HashedTimerWheel;
+import com.celadonsea.messagingframework.core.Timeout;
 import com.celadonsea.messagingframework.listener.CallBack;
+import com.celadonsea.messagingframework.listener.MessageStream;
+import com.celadonsea.messagingframework.message.CompressionCodec;
+import com.celadonsea.messagingframework.topic.ResolvedTopic;
+import com.celadonsea.messagingframework.topic.TopicCache;
 import com.celadonsea.messagingframework.topic.TopicFormat;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
 public interface MessageClient {
 
     void connect();
 
+    /**
+     * Connects without blocking the caller, so several clients can connect concurrently at startup.
+     */
+    default CompletableFuture<Void> connectAsync() {
+        return CompletableFuture.runAsync(this::connect);
+    }
+
     void reconnect(CallBack callBack);
 
     void publish(String topic, byte[] message);
 
     void publish(String topic, byte[] message, int qos);
 
-    void subscribe(String topic, BiConsumer<String, byte[]> messageConsumer);
+    /**
+     * Publishes like {@link #publish(String, byte[])}, but throws a {@link ConnectionException} when the
+     * message is not delivered to the broker instead of only logging the failure.
+     */
+    default void publishOrThrow(String topic, byte[] message) {
+        publish(topic, message);
+    }
+
+    /**
+     * Publishes like {@link #publish(String, byte[], int)}, but throws a {@link ConnectionException} when
+     * the message is not delivered to the broker instead of only logging the failure.
+     */
+    default void publishOrThrow(String topic, byte[] message, int qos) {
+        publish(topic, message, qos);
+    }
+
+    /**
+     * Publishes to a topic resolved by the {@link TopicCache}.
+     */
+    default void publish(ResolvedTopic topic, byte[] message, int qos) {
+        publish(topic.getTopic(), message, qos);
+    }
+
+    /**
+     * Publishes the message at the given time from the thread of the shared timer wheel, the returned
+     * timeout cancels the publish.
+     */
+    default Timeout publishAt(String topic, byte[] message, Instant time) {
+        return HashedTimerWheel.shared().schedule(
+            () -> publish(topic, message),
+            Duration.between(Instant.now(), time).toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publishes the message periodically until the returned timeout is cancelled.
+     */
+    default Timeout publishEvery(String topic, byte[] message, Duration initialDelay, Duration period) {
+        return HashedTimerWheel.shared().scheduleAtFixedRate(
+            () -> publish(topic, message),
+            initialDelay.toNanos(),
+            period.toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publishes a request and completes with the payload of the reply, or exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} if no reply arrives in time.
+     */
+    CompletableFuture<byte[]> request(String topic, byte[] payload, Duration timeout);
+
+    SubscriptionHandle subscribe(String topic, BiConsumer<String, byte[]> messageConsumer);
+
+    List<SubscriptionHandle> subscribe(Collection<Subscription> subscriptions);
+
+    void unsubscribe(SubscriptionHandle subscriptionHandle);
+
+    void unsubscribe(Collection<SubscriptionHandle> subscriptionHandles);
+
+    /**
+     * Stream of the messages received on the topic, signalling an error to the subscriber when it
+     * falls behind by more than the buffer size.
+     */
+    default MessageStream stream(String topic, int bufferSize) {
+        return stream(topic, bufferSize, MessageStream.Overflow.ERROR);
+    }
+
+    MessageStream stream(String topic, int bufferSize, MessageStream.Overflow overflow);
 
     TopicFormat topicFormat();
 
+    default CompressionCodec compressionCodec() {
+        return CompressionCodec.NONE;
+    }
+
+    default TopicCache topicCache() {
+        return TopicCache.NONE;
+    }
+
     MessagePublisher publisher();
 }
@@ -1,6 +1,7 @@
 package com.celadonsea.messagingframework.client;
 
-import com.celadonsea.messagingframework.topic.TopicParser;
+import com.celadonsea.messagingframework.message.MessageEnvelope;
+import com.celadonsea.messagingframework.topic.ResolvedTopic;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 
@@ -20,6 +21,8 @@ public class MessagePublisher {
 
     private String topic;
 
+    private boolean traced;
+
     public MessagePublisher variable(String variable, String value) {
         variables.put(variable, value);
         return this;
@@ -40,8 +43,14 @@ public class MessagePublisher {
         return this;
     }
 
+    public MessagePublisher traced() {
+        this.traced = true;
+        return this;
+    }
+
     public void publish() {
-        String resolvedTopic = TopicParser.generate(topic, variables);
-        this.messageClient.publish(resolvedTopic, message, qos);
+        ResolvedTopic resolvedTopic = messageClient.topicCache().resolve(topic, variables);
+        byte[] payload = traced ? MessageEnvelope.wrap(message, System.currentTimeMillis()) : message;
+        this.messageClient.publish(resolvedTopic, payload, qos);
     }
 }
@@ -1,26 +1,45 @@
 package com.celadonsea.messagingframework.client;
 
 import com.celadonsea.messagingframework.config.MessageClientConfig;
+import com.celadonsea.messagingframework.config.SocketOptions;
+import com.celadonsea.messagingframework.core.ConnectionException;
+import com.celadonsea.messagingframework.core.HashedTimerWheel;
+import com.celadonsea.messagingframework.core.Timeout;
 import com.celadonsea.messagingframework.listener.CallBack;
+import com.celadonsea.messagingframework.listener.MessageStream;
+import com.celadonsea.messagingframework.listener.SubscriptionChange;
+import com.celadonsea.messagingframework.message.CompressionCodec;
 import com.celadonsea.messagingframework.security.CertificateLoader;
 import com.celadonsea.messagingframework.security.CredentialStore;
 import com.celadonsea.messagingframework.security.MessageTlsSocketFactory;
+import com.celadonsea.messagingframework.topic.TopicCache;
 import com.celadonsea.messagingframework.topic.TopicFormat;
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.client.mqttv3.IMqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
 @Slf4j
-@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 public class MqttMessageClient implements MessageClient {
 
+    private static final int MIN_EXECUTOR_THREADS = 4;
+
     private final MessageClientConfig messageClientConfig;
 
     private TopicFormat topicFormat = new TopicFormat('/', '+', '#');
@@ -31,9 +50,34 @@ public class MqttMessageClient implements MessageClient {
 
     private CredentialStore credentialStore;
 
+    private final CompressionCodec compressionCodec;
+
+    private final RequestCorrelator requestCorrelator;
+
+    private final TopicCache topicCache;
+
+    private volatile CompletableFuture<Void> connection = CompletableFuture.completedFuture(null);
+
+    private ScheduledExecutorService executorService;
+
+    private final Object subscriptionLock = new Object();
+
+    MqttMessageClient(MessageClientConfig messageClientConfig) {
+        this(messageClientConfig, null);
+    }
+
     MqttMessageClient(MessageClientConfig messageClientConfig, CredentialStore credentialStore) {
         this.messageClientConfig = messageClientConfig;
         this.credentialStore = credentialStore;
+        this.compressionCodec = new CompressionCodec(
+            messageClientConfig.getCompressedTopics(),
+            topicFormat,
+            messageClientConfig.getMaxDecompressedSize());
+        this.topicCache = new TopicCache(messageClientConfig.getTopicCacheSize());
+        this.requestCorrelator = new RequestCorrelator(
+            this,
+            "replies" + topicFormat.getLevelSeparator() + messageClientConfig.getClientId(),
+            HashedTimerWheel.shared());
     }
 
     @Override
@@ -42,22 +86,62 @@ public class MqttMessageClient implements MessageClient {
         reconnect(callBack);
     }
 
+    @Override
+    public CompletableFuture<Void> connectAsync() {
+        // the callback exists right away, the client operations wait until the connection is made
+        callBack = new CallBack(this);
+        connection = CompletableFuture.runAsync(
+            () -> connectOrThrow(callBack),
+            runnable -> new Thread(runnable, "messaging-connect-" + messageClientConfig.getClientId()).start());
+        return connection;
+    }
+
+    private void awaitConnection() {
+        try {
+            connection.join();
+        } catch (CompletionException e) {
+            throw new ConnectionException("Client is not connected to message broker " + messageClientConfig.getBrokerUrl(), e);
+        }
+    }
+
     public void reconnect(CallBack callBack) {
+        try {
+            connectOrThrow(callBack);
+        } catch (ConnectionException e) {
+            log.error(e.getMessage(), e.getCause());
+        }
+    }
+
+    private void connectOrThrow(CallBack callBack) {
         try {
             mqttClient = new org.eclipse.paho.client.mqttv3.MqttClient(
                 messageClientConfig.getBrokerUrl(),
                 messageClientConfig.getClientId(),
-                new MemoryPersistence());
+                new MemoryPersistence(),
+                getExecutorService());
 
-            ((org.eclipse.paho.client.mqttv3.MqttClient)mqttClient).setTimeToWait(messageClientConfig.getConnectionTimeout());
+            ((org.eclipse.paho.client.mqttv3.MqttClient)mqttClient).setTimeToWait(
+                TimeUnit.SECONDS.toMillis(messageClientConfig.getConnectionTimeout()));
             log.info("Connecting to broker (URL: {})", messageClientConfig.getBrokerUrl());
             mqttClient.connect(getMqttConnectOptions());
+            ((org.eclipse.paho.client.mqttv3.MqttClient)mqttClient).setTimeToWait(messageClientConfig.getPublishTimeToWait());
             mqttClient.setCallback(callBack);
+            restoreSubscriptions(callBack);
         } catch (MqttException e) {
-            log.error("Cannot connect to message broker {}", messageClientConfig.getBrokerUrl(), e);
+            throw new ConnectionException("Cannot connect to message broker " + messageClientConfig.getBrokerUrl(), e);
         }
     }
 
+    private synchronized ScheduledExecutorService getExecutorService() {
+        if (executorService == null && messageClientConfig.getExecutorThreads() > 0) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mqtt-" + messageClientConfig.getClientId() + "-");
+            threadFactory.setDaemon(true);
+            executorService = Executors.newScheduledThreadPool(
+                Math.max(messageClientConfig.getExecutorThreads(), MIN_EXECUTOR_THREADS), threadFactory);
+        }
+        return executorService;
+    }
+
     @Override
     public void publish(String topic, byte[] message) {
         publish(topic, message, messageClientConfig.getQos());
@@ -66,14 +150,69 @@ public class MqttMessageClient implements MessageClient {
     @Override
     public void publish(String topic, byte[] message, int qos) {
         try {
-            MqttMessage mqttMessage = new MqttMessage(message);
+            publishOrThrow(topic, message, qos);
+        } catch (ConnectionException e) {
+            log.error("Cannot publish message", e);
+        }
+    }
+
+    @Override
+    public void publishOrThrow(String topic, byte[] message) {
+        publishOrThrow(topic, message, messageClientConfig.getQos());
+    }
+
+    @Override
+    public void publishOrThrow(String topic, byte[] message, int qos) {
+        awaitConnection();
+        try {
+            MqttMessage mqttMessage = new MqttMessage(compressionCodec.encode(topic, message));
             mqttMessage.setQos(qos);
             mqttClient.publish(topic, mqttMessage);
         } catch (MqttException e) {
-            log.error("Cannot publish message", e);
+            throw new ConnectionException("Cannot publish message on topic " + topic, e);
         }
     }
 
+    @Override
+    public Timeout publishAt(String topic, byte[] message, Instant time) {
+        return HashedTimerWheel.shared().schedule(
+            () -> publishWithoutWaiting(topic, message),
+            Duration.between(Instant.now(), time).toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Timeout publishEvery(String topic, byte[] message, Duration initialDelay, Duration period) {
+        return HashedTimerWheel.shared().scheduleAtFixedRate(
+            () -> publishWithoutWaiting(topic, message),
+            initialDelay.toNanos(),
+            period.toNanos(),
+            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Publish path of the timer thread. Unlike {@link #publish(String, byte[], int)} it waits neither for the
+     * connection nor for the delivery, as the scheduled messages of all the clients share that thread.
+     */
+    private void publishWithoutWaiting(String topic, byte[] message) {
+        if (!connection.isDone() || mqttClient == null || !mqttClient.isConnected()) {
+            log.warn("Scheduled message on topic {} dropped, client is not connected", topic);
+            return;
+        }
+        try {
+            MqttMessage mqttMessage = new MqttMessage(compressionCodec.encode(topic, message));
+            mqttMessage.setQos(messageClientConfig.getQos());
+            mqttClient.getTopic(topic).publish(mqttMessage);
+        } catch (MqttException e) {
+            log.error("Cannot publish scheduled message on topic {}", topic, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<byte[]> request(String topic, byte[] payload, Duration timeout) {
+        return requestCorrelator.request(topic, payload, timeout);
+    }
+
     private MqttConnectOptions getMqttConnectOptions() {
         MqttConnectOptions connectOptions = new MqttConnectOptions();
         connectOptions.setCleanSession(true);
@@ -81,32 +220,126 @@ public class MqttMessageClient implements MessageClient {
         connectOptions.setConnectionTimeout(messageClientConfig.getConnectionTimeout());
         connectOptions.setKeepAliveInterval(messageClientConfig.getKeepAliveInterval());
 
+        SocketOptions socketOptions = SocketOptions.of(messageClientConfig);
         if (messageClientConfig.isConnectionSecured()) {
             CertificateLoader.KeyStorePasswordPair pair = CertificateLoader.getKeyStorePasswordPair(
                 credentialStore.getCertificate(),
                 credentialStore.getPrivateKey());
-            connectOptions.setSocketFactory(new MessageTlsSocketFactory(pair.keyStore, pair.keyPassword));
+            connectOptions.setSocketFactory(new MessageTlsSocketFactory(pair.keyStore, pair.keyPassword, socketOptions));
+        } else if (!socketOptions.isDefault()) {
+            connectOptions.setSocketFactory(new TunedSocketFactory(socketOptions));
         }
 
         return connectOptions;
     }
 
+    private void restoreSubscriptions(CallBack callBack) throws MqttException {
+        String[] brokerSubscriptions = callBack.getBrokerSubscriptions().toArray(new String[0]);
+        if (brokerSubscriptions.length > 0) {
+            mqttClient.subscribe(brokerSubscriptions);
+            log.info("Subscriptions restored: {}", Arrays.toString(brokerSubscriptions));
+        }
+    }
+
+    @Override
+    public SubscriptionHandle subscribe(String topic, BiConsumer<String, byte[]> messageConsumer) {
+        awaitConnection();
+        synchronized (subscriptionLock) {
+            try {
+                applySubscriptionChange(callBack.subscribe(topic, messageConsumer));
+            } catch (MqttException e) {
+                callBack.unsubscribe(topic, messageConsumer);
+                throw new ConnectionException("Cannot subscribe topic " + topic, e);
+            }
+        }
+        log.info("Subscribed to {}", topic);
+        return new SubscriptionHandle(this, topic, messageConsumer);
+    }
+
+    @Override
+    public List<SubscriptionHandle> subscribe(Collection<Subscription> subscriptions) {
+        awaitConnection();
+        List<SubscriptionHandle> subscriptionHandles = new ArrayList<>(subscriptions.size());
+        subscriptions.forEach(subscription -> subscriptionHandles.add(new SubscriptionHandle(this, subscription.getTopic(), subscription.getMessageConsumer())));
+        synchronized (subscriptionLock) {
+            try {
+                applySubscriptionChange(callBack.subscribe(subscriptions));
+            } catch (MqttException e) {
+                callBack.unsubscribe(subscriptionHandles);
+                throw new ConnectionException("Cannot subscribe " + subscriptions.size() + " topics", e);
+            }
+        }
+        log.info("Subscribed to {} topics", subscriptions.size());
+        return subscriptionHandles;
+    }
+
+    @Override
+    public void unsubscribe(SubscriptionHandle subscriptionHandle) {
+        awaitConnection();
+        synchronized (subscriptionLock) {
+            try {
+                applySubscriptionChange(callBack.unsubscribe(subscriptionHandle.getTopic(), subscriptionHandle.getMessageConsumer()));
+            } catch (MqttException e) {
+                callBack.subscribe(subscriptionHandle.getTopic(), subscriptionHandle.getMessageConsumer());
+                throw new ConnectionException("Cannot unsubscribe topic " + subscriptionHandle.getTopic(), e);
+            }
+        }
+        log.info("Unsubscribed from {}", subscriptionHandle.getTopic());
+    }
+
     @Override
-    public void subscribe(String topic, BiConsumer<String, byte[]> messageConsumer) {
+    public void unsubscribe(Collection<SubscriptionHandle> subscriptionHandles) {
+        awaitConnection();
+        synchronized (subscriptionLock) {
+            try {
+                applySubscriptionChange(callBack.unsubscribe(subscriptionHandles));
+            } catch (MqttException e) {
+                subscriptionHandles.forEach(handle -> callBack.subscribe(handle.getTopic(), handle.getMessageConsumer()));
+                throw new ConnectionException("Cannot unsubscribe " + subscriptionHandles.size() + " topics", e);
+            }
+        }
+        log.info("Unsubscribed from {} topics", subscriptionHandles.size());
+    }
+
+    /**
+     * Applies a registry change at the broker, called holding the subscription lock so the broker
+     * sees the changes in registry order. A failed subscribe is thrown for the caller to roll the
+     * registry back, a failed unsubscribe only leaves a covered filter subscribed and is logged.
+     */
+    private void applySubscriptionChange(SubscriptionChange subscriptionChange) throws MqttException {
+        // one broker round trip for each direction, new filters are subscribed before the covered ones are dropped
+        if (!subscriptionChange.getSubscribed().isEmpty()) {
+            mqttClient.subscribe(subscriptionChange.getSubscribed().toArray(new String[0]));
+        }
         try {
-            mqttClient.subscribe(topic);
-            callBack.subscribe(topic, messageConsumer);
-            log.info("Subscribed to {}", topic);
+            if (!subscriptionChange.getUnsubscribed().isEmpty()) {
+                mqttClient.unsubscribe(subscriptionChange.getUnsubscribed().toArray(new String[0]));
+            }
         } catch (MqttException e) {
-            log.error("Cannot subscribe topic {}", topic, e);
+            log.error("Cannot unsubscribe topics {}", subscriptionChange.getUnsubscribed(), e);
         }
     }
 
+    @Override
+    public MessageStream stream(String topic, int bufferSize, MessageStream.Overflow overflow) {
+        return new MessageStream(this, topic, bufferSize, overflow);
+    }
+
     @Override
     public TopicFormat topicFormat() {
         return topicFormat;
     }
 
+    @Override
+    public CompressionCodec compressionCodec() {
+        return compressionCodec;
+    }
+
+    @Override
+    public TopicCache topicCache() {
+        return topicCache;
+    }
+
     @Override
     public MessagePublisher publisher() {
         return new MessagePublisher(this);
@@ -0,0 +1,105 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.core.HashedTimerWheel;
+import com.celadonsea.messagingframework.core.Timeout;
+import com.celadonsea.messagingframework.listener.ReplyContext;
+import com.celadonsea.messagingframework.message.MessageEnvelope;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request/reply over topics. The requests carry the reply topic of the client and a correlation id in
+ * the message envelope, the replies arrive on the one reply topic subscription of the client and complete
+ * the pending request of their correlation id. The correlation ids start at a random value, so a late
+ * reply to a request of a previous run of the client does not complete a request of the current one.
+ */
+@Slf4j
+public class RequestCorrelator {
+
+    private final MessageClient messageClient;
+
+    private final String replyTopic;
+
+    private final HashedTimerWheel timerWheel;
+
+    private final Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+
+    private final AtomicLong correlationIds = new AtomicLong(ThreadLocalRandom.current().nextLong());
+
+    private volatile boolean subscribed;
+
+    public RequestCorrelator(MessageClient messageClient, String replyTopic, HashedTimerWheel timerWheel) {
+        this.messageClient = messageClient;
+        this.replyTopic = replyTopic;
+        this.timerWheel = timerWheel;
+    }
+
+    public CompletableFuture<byte[]> request(String topic, byte[] payload, Duration timeout) {
+        subscribeReplies();
+        long correlationId = correlationIds.incrementAndGet();
+        PendingRequest pendingRequest = new PendingRequest();
+        pendingRequests.put(correlationId, pendingRequest);
+        pendingRequest.timeout = timerWheel.schedule(() -> {
+            if (pendingRequests.remove(correlationId) != null) {
+                pendingRequest.reply.completeExceptionally(new TimeoutException("No reply for request on " + topic + " in " + timeout));
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            messageClient.publishOrThrow(topic, MessageEnvelope.wrapRequest(payload, replyTopic, correlationId));
+        } catch (RuntimeException e) {
+            pendingRequests.remove(correlationId);
+            pendingRequest.timeout.cancel();
+            pendingRequest.reply.completeExceptionally(e);
+        }
+        return pendingRequest.reply;
+    }
+
+    public int getPendingRequests() {
+        return pendingRequests.size();
+    }
+
+    private void subscribeReplies() {
+        if (!subscribed) {
+            synchronized (this) {
+                if (!subscribed) {
+                    messageClient.subscribe(replyTopic, this::replyArrived);
+                    subscribed = true;
+                }
+            }
+        }
+    }
+
+    private void replyArrived(String topic, byte[] message) {
+        ReplyContext replyContext = ReplyContext.current();
+        if (replyContext == null) {
+            log.warn("Uncorrelated message on reply topic {} dropped", topic);
+            return;
+        }
+        PendingRequest pendingRequest = pendingRequests.remove(replyContext.getCorrelationId());
+        if (pendingRequest == null) {
+            log.debug("Late reply {} on topic {} dropped", replyContext.getCorrelationId(), topic);
+            return;
+        }
+        // the timeout is not assigned yet if the reply beats the scheduling, it finds no pending request then
+        Timeout timeout = pendingRequest.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        pendingRequest.reply.complete(message);
+    }
+
+    private static class PendingRequest {
+
+        private final CompletableFuture<byte[]> reply = new CompletableFuture<>();
+
+        private volatile Timeout timeout;
+    }
+}
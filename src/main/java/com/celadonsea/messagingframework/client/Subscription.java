@@ -0,0 +1,18 @@
+package com.celadonsea.messagingframework.client;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Topic and consumer of a bulk subscription. A topic may appear with several consumers.
+ */
+@Getter
+@RequiredArgsConstructor
+public class Subscription {
+
+    private final String topic;
+
+    private final BiConsumer<String, byte[]> messageConsumer;
+}
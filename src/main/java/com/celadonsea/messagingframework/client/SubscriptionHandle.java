@@ -0,0 +1,23 @@
+package com.celadonsea.messagingframework.client;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.BiConsumer;
+
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class SubscriptionHandle {
+
+    private final MessageClient messageClient;
+
+    @Getter
+    private final String topic;
+
+    @Getter
+    private final BiConsumer<String, byte[]> messageConsumer;
+
+    public void unsubscribe() {
+        messageClient.unsubscribe(this);
+    }
+}
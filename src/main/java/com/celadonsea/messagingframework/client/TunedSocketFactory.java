@@ -0,0 +1,58 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.config.SocketOptions;
+import lombok.RequiredArgsConstructor;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Plain socket factory applying the socket options. Paho creates the socket unconnected, so the
+ * options are set before connecting.
+ */
+@RequiredArgsConstructor
+class TunedSocketFactory extends SocketFactory {
+
+    private final SocketOptions socketOptions;
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return socketOptions.apply(new Socket());
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return connect(createSocket(), new InetSocketAddress(host, port), null);
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localAddress, int localPort) throws IOException {
+        return connect(createSocket(), new InetSocketAddress(host, port), new InetSocketAddress(localAddress, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return connect(createSocket(), new InetSocketAddress(host, port), null);
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port, InetAddress localAddress, int localPort) throws IOException {
+        return connect(createSocket(), new InetSocketAddress(host, port), new InetSocketAddress(localAddress, localPort));
+    }
+
+    private Socket connect(Socket socket, InetSocketAddress address, InetSocketAddress localAddress) throws IOException {
+        try {
+            if (localAddress != null) {
+                socket.bind(localAddress);
+            }
+            socket.connect(address);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+}
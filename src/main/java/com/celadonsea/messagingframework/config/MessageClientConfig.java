@@ -1,5 +1,9 @@
 package com.celadonsea.messagingframework.config;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 public interface MessageClientConfig {
 
     String getClientType();
@@ -17,4 +21,64 @@ public interface MessageClientConfig {
     int getQos();
 
     boolean isConnectionSecured();
+
+    /**
+     * Topic filters of the messages compressed on publish, each with its preset dictionary or an
+     * empty array. The dictionaries are also used to decompress the received messages.
+     */
+    default Map<String, byte[]> getCompressedTopics() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Maximum size in bytes a received compressed message may inflate to, larger ones are dropped.
+     */
+    default int getMaxDecompressedSize() {
+        return 16 * 1024 * 1024;
+    }
+
+    /**
+     * Maximum number of resolved publish topics cached by the client, 0 to disable the cache.
+     */
+    default int getTopicCacheSize() {
+        return 65536;
+    }
+
+    /**
+     * Threads of the executor shared by the Paho clients of this client across reconnects, 0 to let
+     * Paho start its own threads. The receiver, sender and callback loops of a connection hold a
+     * thread each, so at least 4 threads are started to leave one for the keepalive pings.
+     */
+    default int getExecutorThreads() {
+        return 0;
+    }
+
+    /**
+     * Disables Nagle's algorithm on the broker connection, plain and TLS alike.
+     */
+    default boolean isTcpNoDelay() {
+        return false;
+    }
+
+    /**
+     * Socket send buffer size in bytes, 0 for the system default.
+     */
+    default int getSendBufferSize() {
+        return 0;
+    }
+
+    /**
+     * Socket receive buffer size in bytes, 0 for the system default.
+     */
+    default int getReceiveBufferSize() {
+        return 0;
+    }
+
+    /**
+     * Milliseconds a publish, subscribe or unsubscribe waits for its completion, -1 to wait without
+     * limit. Defaults to the connection timeout, which is in seconds; connecting always waits for it.
+     */
+    default long getPublishTimeToWait() {
+        return TimeUnit.SECONDS.toMillis(getConnectionTimeout());
+    }
 }
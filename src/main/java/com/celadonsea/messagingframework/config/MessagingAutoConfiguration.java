@@ -11,7 +11,9 @@ public class MessagingAutoConfiguration {
 
     @Bean
     public MessageCallbackPreProcessor messageListener() {
-        return new MessageCallbackPreProcessor();
+        MessageCallbackPreProcessor messageCallbackPreProcessor = new MessageCallbackPreProcessor();
+        messageCallbackPreProcessor.deferSubscriptions();
+        return messageCallbackPreProcessor;
     }
 
     @Bean
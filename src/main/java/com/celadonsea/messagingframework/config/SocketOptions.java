@@ -0,0 +1,48 @@
+package com.celadonsea.messagingframework.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.net.Socket;
+import java.net.SocketException;
+
+/**
+ * Socket tuning of the broker connection, applied before the socket connects where the transport
+ * allows it, so the buffer sizes take effect on the TCP window.
+ */
+@Getter
+@AllArgsConstructor
+public class SocketOptions {
+
+    public static final SocketOptions DEFAULT = new SocketOptions(false, 0, 0);
+
+    private boolean tcpNoDelay;
+
+    private int sendBufferSize;
+
+    private int receiveBufferSize;
+
+    public static SocketOptions of(MessageClientConfig messageClientConfig) {
+        return new SocketOptions(
+            messageClientConfig.isTcpNoDelay(),
+            messageClientConfig.getSendBufferSize(),
+            messageClientConfig.getReceiveBufferSize());
+    }
+
+    public boolean isDefault() {
+        return !tcpNoDelay && sendBufferSize <= 0 && receiveBufferSize <= 0;
+    }
+
+    public Socket apply(Socket socket) throws SocketException {
+        if (tcpNoDelay) {
+            socket.setTcpNoDelay(true);
+        }
+        if (sendBufferSize > 0) {
+            socket.setSendBufferSize(sendBufferSize);
+        }
+        if (receiveBufferSize > 0) {
+            socket.setReceiveBufferSize(receiveBufferSize);
+        }
+        return socket;
+    }
+}
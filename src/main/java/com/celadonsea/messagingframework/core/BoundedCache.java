@@ -0,0 +1,45 @@
+package com.celadonsea.messagingframework.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Concurrent cache of values derived from a key. Hits are a single lock-free lookup. When the cache
+ * is full it is cleared instead of tracking the usage of the entries, which suits hot key sets
+ * smaller than the capacity.
+ */
+public class BoundedCache<K, V> {
+
+    private final int capacity;
+
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+
+    public BoundedCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the cached value or the value computed by the function, which may run concurrently
+     * for the same key
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = entries.get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (entries.size() >= capacity) {
+                entries.clear();
+            }
+            entries.put(key, value);
+        }
+        return value;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package com.celadonsea.messagingframework.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer for large numbers of timeouts. Scheduling and cancelling are O(1), the timeouts are hashed into
+ * the buckets of a wheel by their deadline and one thread expires a bucket on every tick. The tasks run
+ * on the timer thread, so they have to be short and must not block.
+ */
+@Slf4j
+public class HashedTimerWheel {
+
+    private static final HashedTimerWheel SHARED = new HashedTimerWheel(10, TimeUnit.MILLISECONDS, 512, "messaging-timer");
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    private final List<Timeout>[] wheel;
+
+    private final Queue<Timeout> scheduledTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final String threadName;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    // the deadlines are relative to the creation, so a timeout never sees the wheel unstarted
+    private final long startNanos = System.nanoTime();
+
+    private volatile Thread worker;
+
+    private long tick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashedTimerWheel(long tickDuration, TimeUnit unit, int wheelSize, String threadName) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        int buckets = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = Math.max(buckets, 1) - 1;
+        this.wheel = new List[mask + 1];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.threadName = threadName;
+    }
+
+    /**
+     * @return the timer wheel shared by the clients of the application
+     */
+    public static HashedTimerWheel shared() {
+        return SHARED;
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, delay, 0, unit);
+    }
+
+    /**
+     * Runs the task periodically until the returned timeout is cancelled. A run delayed by more than a
+     * period is caught up with one run per tick.
+     */
+    public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        return schedule(task, initialDelay, period, unit);
+    }
+
+    private Timeout schedule(Runnable task, long delay, long period, TimeUnit unit) {
+        start();
+        if (!running) {
+            throw new IllegalStateException("Timer wheel is stopped");
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + Math.max(unit.toNanos(delay), 0), unit.toNanos(period));
+        scheduledTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer thread, the pending timeouts never expire.
+     */
+    public void stop() {
+        running = false;
+        Thread thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            worker = new Thread(this::work, threadName);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void work() {
+        // a wheel started long after its creation begins at the current tick instead of catching up
+        tick = (System.nanoTime() - startNanos) / tickNanos;
+        while (running) {
+            long sleepNanos = startNanos + tickNanos * (tick + 1) - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+            transferScheduledTimeouts();
+            expire(wheel[(int) (tick & mask)], System.nanoTime() - startNanos);
+            tick++;
+        }
+    }
+
+    private void transferScheduledTimeouts() {
+        Timeout timeout;
+        while ((timeout = scheduledTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long expiryTick = timeout.deadlineNanos / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // a timeout scheduled late in the past tick expires in the current one
+            wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket, long nowNanos) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= nowNanos) {
+                if (timeout.isPeriodic()) {
+                    run(timeout);
+                    timeout.deadlineNanos += timeout.periodNanos;
+                    scheduledTimeouts.add(timeout);
+                } else if (timeout.expire()) {
+                    run(timeout);
+                }
+            } else {
+                timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    private void run(Timeout timeout) {
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            log.error("Timer task failed", e);
+        }
+    }
+}
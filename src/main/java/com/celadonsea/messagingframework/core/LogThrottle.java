@@ -0,0 +1,36 @@
+package com.celadonsea.messagingframework.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets a log message repeated for every message through at most once per interval, so a bad
+ * topic or an overloaded listener does not flood the log.
+ */
+public class LogThrottle {
+
+    private final long intervalNanos;
+
+    private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogThrottle(long interval, TimeUnit unit) {
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * @return the number of messages suppressed since the last one let through, or -1 if this one
+     * is to be suppressed
+     */
+    public long tryAcquire() {
+        long now = System.nanoTime();
+        long nextLog = nextLogNanos.get();
+        if (now - nextLog < 0 || !nextLogNanos.compareAndSet(nextLog, now + intervalNanos)) {
+            suppressed.increment();
+            return -1;
+        }
+        return suppressed.sumThenReset();
+    }
+}
@@ -0,0 +1,57 @@
+package com.celadonsea.messagingframework.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A task scheduled on a {@link HashedTimerWheel}.
+ */
+public class Timeout {
+
+    private static final int PENDING = 0;
+
+    private static final int CANCELLED = 1;
+
+    private static final int EXPIRED = 2;
+
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    final Runnable task;
+
+    final long periodNanos;
+
+    long deadlineNanos;
+
+    long remainingRounds;
+
+    Timeout(Runnable task, long deadlineNanos, long periodNanos) {
+        this.task = task;
+        this.deadlineNanos = deadlineNanos;
+        this.periodNanos = periodNanos;
+    }
+
+    public boolean isPeriodic() {
+        return periodNanos > 0;
+    }
+
+    /**
+     * @return false if the task has already run or has been cancelled before
+     */
+    public boolean cancel() {
+        return state.compareAndSet(PENDING, CANCELLED);
+    }
+
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    /**
+     * @return true if the one-shot task has run, a periodic task never expires
+     */
+    public boolean isExpired() {
+        return state.get() == EXPIRED;
+    }
+
+    boolean expire() {
+        return state.compareAndSet(PENDING, EXPIRED);
+    }
+}
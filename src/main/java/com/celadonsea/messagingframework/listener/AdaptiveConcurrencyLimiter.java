@@ -0,0 +1,60 @@
+package com.celadonsea.messagingframework.listener;
+
+/**
+ * Concurrency limit adjusted by handler latency (AIMD). The limit grows by about one per round
+ * trip while the handler keeps up and is saturated, and it is cut back when a handler fails or
+ * takes more than twice the baseline latency. The baseline is the lowest latency seen recently:
+ * it follows the observed latencies upwards slowly, so a sudden slowdown stands out.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int maxLimit;
+
+    private double limit;
+
+    private int inFlight;
+
+    private long baselineNanos = Long.MAX_VALUE;
+
+    public AdaptiveConcurrencyLimiter(int maxLimit) {
+        if (maxLimit <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be positive: " + maxLimit);
+        }
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= getLimit()) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Gives back a permit that was not used to run a message, the limit stays as it is.
+     */
+    public synchronized void cancel() {
+        inFlight--;
+    }
+
+    public synchronized void release(long latencyNanos, boolean failed) {
+        boolean saturated = inFlight >= getLimit();
+        inFlight--;
+        baselineNanos = Math.min(latencyNanos, baselineNanos == Long.MAX_VALUE ? latencyNanos : baselineNanos + (baselineNanos >> 8));
+        if (failed || latencyNanos > baselineNanos * LATENCY_TOLERANCE) {
+            limit = Math.max(1, limit * BACKOFF_RATIO);
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+}
@@ -1,41 +1,92 @@
 package com.celadonsea.messagingframework.listener;
 
 import com.celadonsea.messagingframework.client.MessageClient;
-import lombok.RequiredArgsConstructor;
+import com.celadonsea.messagingframework.client.Subscription;
+import com.celadonsea.messagingframework.client.SubscriptionHandle;
+import com.celadonsea.messagingframework.message.MessageEnvelope;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Collection;
+import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
 
 @Slf4j
-@RequiredArgsConstructor
 public class CallBack implements MqttCallback {
 
     private final MessageClient messageClient;
 
-    private Map<String, BiConsumer<String, byte[]>> subscriptionMap = new HashMap<>();
+    private final SubscriptionRegistry subscriptionRegistry;
 
-    public void subscribe(String topic, BiConsumer<String, byte[]> consumer) {
-        subscriptionMap.put(topic, consumer);
+    public CallBack(MessageClient messageClient) {
+        this.messageClient = messageClient;
+        this.subscriptionRegistry = new SubscriptionRegistry(messageClient.topicFormat());
+    }
+
+    public SubscriptionChange subscribe(String topic, BiConsumer<String, byte[]> consumer) {
+        return subscriptionRegistry.add(topic, consumer);
+    }
+
+    public SubscriptionChange subscribe(Collection<Subscription> subscriptions) {
+        return subscriptionRegistry.addAll(subscriptions);
+    }
+
+    public SubscriptionChange unsubscribe(String topic, BiConsumer<String, byte[]> consumer) {
+        return subscriptionRegistry.remove(topic, consumer);
+    }
+
+    public SubscriptionChange unsubscribe(Collection<SubscriptionHandle> subscriptionHandles) {
+        return subscriptionRegistry.removeAll(subscriptionHandles);
+    }
+
+    public Set<String> getBrokerSubscriptions() {
+        return subscriptionRegistry.getBrokerFilters();
     }
 
     public void messageArrived(String topic, byte[] message) {
-        Iterator<Map.Entry<String, BiConsumer<String, byte[]>>> iterator = subscriptionMap.entrySet().iterator();
-
-        while (iterator.hasNext()) {
-            Map.Entry<String, BiConsumer<String, byte[]>> subscription = iterator.next();
-            if (topic.matches(subscription.getKey()
-                .replaceAll("/", "\\/")
-                .replaceAll("\\.", "\\.")
-                .replaceAll("\\*", "(.*)")
-                .replaceAll("\\+", "(.*)"))) {
-                subscription.getValue().accept(topic, message);
+        MessageEnvelope envelope = MessageEnvelope.unwrap(message);
+        if (envelope != null && envelope.isCompressed()) {
+            // the compressed message is an envelope or a plain payload again, decompressed only once
+            try {
+                message = messageClient.compressionCodec().decode(envelope.getPayload());
+            } catch (DataFormatException e) {
+                log.error("Cannot decompress message on topic {}, message dropped", topic, e);
+                return;
             }
+            envelope = MessageEnvelope.unwrap(message);
+            if (envelope != null && envelope.isCompressed()) {
+                log.error("Nested compressed message on topic {}, message dropped", topic);
+                return;
+            }
+        }
+        if (envelope == null) {
+            dispatch(topic, message);
+        } else {
+            dispatch(topic, envelope);
+        }
+    }
+
+    private void dispatch(String topic, MessageEnvelope envelope) {
+        Runnable dispatch = () -> dispatch(topic, envelope.getPayload());
+        if (envelope.isCorrelated()) {
+            ReplyContext replyContext = new ReplyContext(envelope.getReplyTopic(), envelope.getCorrelationId());
+            Runnable uncorrelatedDispatch = dispatch;
+            dispatch = () -> ReplyContext.runWith(replyContext, uncorrelatedDispatch);
+        }
+        if (envelope.isTraced()) {
+            MessageTrace messageTrace = new MessageTrace(envelope.getPublishTimestamp(), System.currentTimeMillis(), System.nanoTime());
+            MessageTrace.runWith(messageTrace, dispatch);
+        } else {
+            dispatch.run();
+        }
+    }
+
+    private void dispatch(String topic, byte[] message) {
+        for (BiConsumer<String, byte[]> consumer : subscriptionRegistry.match(topic)) {
+            consumer.accept(topic, message);
         }
     }
 
@@ -43,7 +94,6 @@ public class CallBack implements MqttCallback {
     public void connectionLost(Throwable cause) {
         log.error("Connection lost", cause);
         messageClient.reconnect(this);
-        subscriptionMap.forEach(messageClient::subscribe);
     }
 
     @Override
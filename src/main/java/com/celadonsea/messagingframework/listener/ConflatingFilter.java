@@ -0,0 +1,93 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+/**
+ * Last value wins dispatch: every key has a single pending slot, a message arriving before the
+ * previous one of its key was handled replaces it. The pending keys are handled in arrival order,
+ * one message at a time, so the memory and work held back are bounded by the number of keys.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConflatingFilter implements BiConsumer<String, byte[]> {
+
+    private final BiConsumer<String, byte[]> delegate;
+
+    private final BiFunction<String, byte[], String> keyExtractor;
+
+    private final Executor executor;
+
+    private final Map<String, PendingMessage> pendingMessages = new ConcurrentHashMap<>();
+
+    private final Queue<String> pendingKeys = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger drainCounter = new AtomicInteger();
+
+    @Getter
+    private final LongAdder conflatedMessages = new LongAdder();
+
+    @Override
+    public void accept(String topic, byte[] message) {
+        String key = keyExtractor.apply(topic, message);
+        if (key == null) {
+            key = topic;
+        }
+        if (pendingMessages.put(key, new PendingMessage(topic, DispatchContext.wrap(() -> delegate.accept(topic, message)))) == null) {
+            pendingKeys.add(key);
+        } else {
+            conflatedMessages.increment();
+        }
+        if (drainCounter.getAndIncrement() == 0) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                drainCounter.set(0);
+                log.error("Cannot dispatch conflated messages of topic {}", topic, e);
+            }
+        }
+    }
+
+    private void drain() {
+        int missed = 1;
+        do {
+            String key;
+            while ((key = pendingKeys.poll()) != null) {
+                PendingMessage pendingMessage = pendingMessages.remove(key);
+                if (pendingMessage != null) {
+                    deliver(pendingMessage);
+                }
+            }
+            missed = drainCounter.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void deliver(PendingMessage pendingMessage) {
+        try {
+            pendingMessage.delivery.run();
+        } catch (RuntimeException e) {
+            log.error("Cannot dispatch message on topic {}", pendingMessage.topic, e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingMessage {
+
+        private final String topic;
+
+        private final Runnable delivery;
+    }
+}
@@ -0,0 +1,7 @@
+package com.celadonsea.messagingframework.listener;
+
+@FunctionalInterface
+public interface DeadLetterHandler {
+
+    void accept(String topic, byte[] message, Throwable cause);
+}
@@ -0,0 +1,106 @@
+package com.celadonsea.messagingframework.listener;
+
+import java.util.Arrays;
+
+/**
+ * Bounded, time evicting set of message ids. Ids are stored as 64 bit hashes in two
+ * generations of open addressing primitive arrays, so the cache allocates nothing per
+ * message. The current generation is retired when it is full or older than half of the
+ * expiry time, and the retired one is dropped on the next rotation.
+ */
+public class DeduplicationCache {
+
+    private static final long EMPTY = 0L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int generationCapacity;
+
+    private final long generationLengthMs;
+
+    private long[] current;
+
+    private long[] previous;
+
+    private int currentSize;
+
+    private long generationStart;
+
+    public DeduplicationCache(int capacity, long expireAfterMs) {
+        if (capacity < 2 || expireAfterMs < 2) {
+            throw new IllegalArgumentException("Deduplication capacity and expiry must be at least 2");
+        }
+        this.generationCapacity = capacity / 2;
+        this.generationLengthMs = expireAfterMs / 2;
+        int tableSize = Integer.highestOneBit(generationCapacity * 2 - 1) << 1;
+        this.current = new long[tableSize];
+        this.previous = new long[tableSize];
+        this.generationStart = System.currentTimeMillis();
+    }
+
+    /**
+     * @return true if the id was not seen before
+     */
+    public synchronized boolean add(String id) {
+        rotateIfNeeded(System.currentTimeMillis());
+        long hash = hash(id);
+        if (contains(previous, hash)) {
+            return false;
+        }
+        int mask = current.length - 1;
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        while (current[index] != EMPTY) {
+            if (current[index] == hash) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        current[index] = hash;
+        currentSize++;
+        return true;
+    }
+
+    private void rotateIfNeeded(long now) {
+        if (currentSize >= generationCapacity || now - generationStart >= generationLengthMs) {
+            long[] retired = previous;
+            previous = current;
+            current = retired;
+            Arrays.fill(current, EMPTY);
+            if (now - generationStart >= 2 * generationLengthMs) {
+                // idle for more than the expiry time, the retired generation is expired as well
+                Arrays.fill(previous, EMPTY);
+            }
+            currentSize = 0;
+            generationStart = now;
+        }
+    }
+
+    private static boolean contains(long[] table, long hash) {
+        int mask = table.length - 1;
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == hash) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    private static long hash(String id) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int index = 0; index < id.length(); index++) {
+            hash ^= id.charAt(index);
+            hash *= FNV_PRIME;
+        }
+        // final mix of murmur3, spreads the bits for the table index
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+}
@@ -0,0 +1,30 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+@Slf4j
+@RequiredArgsConstructor
+public class DeduplicationFilter implements BiConsumer<String, byte[]> {
+
+    private final BiConsumer<String, byte[]> delegate;
+
+    private final BiFunction<String, byte[], String> messageIdExtractor;
+
+    private final DeduplicationCache deduplicationCache;
+
+    @Override
+    public void accept(String topic, byte[] message) {
+        String messageId = messageIdExtractor.apply(topic, message);
+        if (messageId == null) {
+            log.debug("No message id found on topic {}, message is not deduplicated", topic);
+        } else if (!deduplicationCache.add(messageId)) {
+            log.debug("Duplicate message {} dropped on topic {}", messageId, topic);
+            return;
+        }
+        delegate.accept(topic, message);
+    }
+}
@@ -0,0 +1,19 @@
+package com.celadonsea.messagingframework.listener;
+
+/**
+ * Thread-bound context of the message being dispatched: its {@link MessageTrace} and {@link ReplyContext}.
+ * Stages handing a message to another thread wrap the task, so the listener sees the same context.
+ */
+public class DispatchContext {
+
+    private DispatchContext() {}
+
+    /**
+     * @return task running the given one with the trace and correlation of the calling thread
+     */
+    public static Runnable wrap(Runnable runnable) {
+        MessageTrace messageTrace = MessageTrace.current();
+        ReplyContext replyContext = ReplyContext.current();
+        return () -> MessageTrace.runWith(messageTrace, () -> ReplyContext.runWith(replyContext, runnable));
+    }
+}
@@ -0,0 +1,20 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.Getter;
+
+/**
+ * Failure of a listener invocation. Messages that cannot be read are not retryable, they would
+ * fail the same way again.
+ */
+@Getter
+public class ListenerException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public ListenerException(String message, Throwable cause, boolean retryable) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+}
@@ -0,0 +1,182 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.client.MessageClient;
+import com.celadonsea.messagingframework.client.SubscriptionHandle;
+import com.celadonsea.messagingframework.message.ReceivedMessage;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reactive Streams view of a topic subscription. Received messages are buffered up to the
+ * configured size and delivered on demand. The receiving thread never waits for the subscriber,
+ * it serves every subscription of the client, so a full buffer is handled by the overflow
+ * strategy. The stream supports a single subscriber.
+ */
+@Slf4j
+public class MessageStream implements Publisher<ReceivedMessage> {
+
+    public enum Overflow {
+
+        /**
+         * Drops the messages arriving while the buffer is full.
+         */
+        DROP,
+
+        /**
+         * Cancels the stream and signals an error to the subscriber.
+         */
+        ERROR
+    }
+
+    private final MessageClient messageClient;
+
+    private final String topic;
+
+    private final BlockingQueue<ReceivedMessage> buffer;
+
+    private final Overflow overflow;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private final AtomicLong requested = new AtomicLong();
+
+    private final AtomicInteger drainCounter = new AtomicInteger();
+
+    private volatile Subscriber<? super ReceivedMessage> subscriber;
+
+    private volatile boolean cancelled;
+
+    private volatile SubscriptionHandle subscriptionHandle;
+
+    private volatile Throwable error;
+
+    @Getter
+    private final LongAdder droppedMessages = new LongAdder();
+
+    public MessageStream(MessageClient messageClient, String topic, int bufferSize, Overflow overflow) {
+        this.messageClient = messageClient;
+        this.topic = topic;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.overflow = overflow;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ReceivedMessage> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber must not be null");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new RejectedSubscription());
+            subscriber.onError(new IllegalStateException("Message stream of " + topic + " supports only one subscriber"));
+            return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe(new StreamSubscription());
+        if (!cancelled) {
+            subscriptionHandle = messageClient.subscribe(topic, this::offer);
+        }
+    }
+
+    private void offer(String topic, byte[] payload) {
+        if (cancelled || error != null) {
+            return;
+        }
+        if (!buffer.offer(new ReceivedMessage(topic, payload))) {
+            droppedMessages.increment();
+            if (overflow == Overflow.ERROR) {
+                error = new IllegalStateException("Message stream of " + this.topic + " overflowed its buffer of "
+                    + (buffer.size() + buffer.remainingCapacity()) + " messages");
+            } else {
+                log.debug("Message stream of {} is full, dropping message of {}", this.topic, topic);
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (drainCounter.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            long demand = requested.get();
+            long emitted = 0;
+            while (emitted != demand && !cancelled) {
+                ReceivedMessage message = buffer.poll();
+                if (message == null) {
+                    break;
+                }
+                subscriber.onNext(message);
+                emitted++;
+            }
+            if (emitted != 0 && demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+            if (error != null && !cancelled) {
+                terminate();
+                subscriber.onError(error);
+            }
+            missed = drainCounter.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void terminate() {
+        cancelled = true;
+        if (subscriptionHandle != null) {
+            subscriptionHandle.unsubscribe();
+        }
+        buffer.clear();
+    }
+
+    private class StreamSubscription implements Subscription {
+
+        @Override
+        public void request(long n) {
+            if (subscriber == null || cancelled) {
+                return;
+            }
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Requested message count must be positive: " + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!requested.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                terminate();
+            }
+        }
+    }
+
+    private static class RejectedSubscription implements Subscription {
+
+        @Override
+        public void request(long n) {
+            // the subscriber is already terminated
+        }
+
+        @Override
+        public void cancel() {
+            // the subscriber is already terminated
+        }
+    }
+}
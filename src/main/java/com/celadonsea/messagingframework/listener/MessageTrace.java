@@ -0,0 +1,42 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Timing of a traced message. The trace of the message being dispatched is bound to the
+ * dispatching thread, so it reaches the listeners without changing the consumer signature.
+ */
+@Getter
+@AllArgsConstructor
+public class MessageTrace {
+
+    private static final ThreadLocal<MessageTrace> CURRENT = new ThreadLocal<>();
+
+    private long publishTimestamp;
+
+    private long arrivalTimestamp;
+
+    private long arrivalNanos;
+
+    /**
+     * @return the trace of the message dispatched on this thread or null if it is not traced
+     */
+    public static MessageTrace current() {
+        return CURRENT.get();
+    }
+
+    public static void runWith(MessageTrace messageTrace, Runnable runnable) {
+        MessageTrace previous = CURRENT.get();
+        CURRENT.set(messageTrace);
+        try {
+            runnable.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
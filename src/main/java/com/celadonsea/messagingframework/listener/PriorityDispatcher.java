@@ -0,0 +1,197 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.annotation.Priority;
+import com.celadonsea.messagingframework.core.LogThrottle;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Dispatches messages of prioritized listeners on worker threads. The high priority lane has a
+ * worker of its own, so a slow listener of a lower priority never holds up its messages. The normal
+ * and low priority lanes share the other workers; in a scheduling round a lane may run as many
+ * messages as its weight and a waiting normal priority message is taken before the low lane
+ * continues. The receiving thread never waits for the workers, when a shared lane is full its oldest
+ * message is dropped. The high priority lane is unbounded, its messages are never dropped.
+ */
+@Slf4j
+public class PriorityDispatcher {
+
+    public static final int DEFAULT_LANE_CAPACITY = 1000;
+
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+
+    private final Lane highLane = new Lane(Priority.HIGH, new LinkedBlockingQueue<>());
+
+    private final Semaphore pendingHighMessages = new Semaphore(0);
+
+    private final List<Lane> schedulingOrder = new ArrayList<>();
+
+    private final Semaphore pendingMessages = new Semaphore(0);
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final LogThrottle overflowLog = new LogThrottle(10, TimeUnit.SECONDS);
+
+    @Getter
+    private final LongAdder droppedMessages = new LongAdder();
+
+    private volatile boolean running = true;
+
+    public PriorityDispatcher(ThreadFactory threadFactory) {
+        this(threadFactory, 1, DEFAULT_LANE_CAPACITY);
+    }
+
+    /**
+     * @param workerCount the workers shared by the normal and low priority lanes, the high priority
+     *                    lane has an additional worker
+     * @param laneCapacity the capacity of the normal and low priority lanes
+     */
+    public PriorityDispatcher(ThreadFactory threadFactory, int workerCount, int laneCapacity) {
+        lanes.put(Priority.HIGH, highLane);
+        for (Priority priority : Priority.values()) {
+            if (priority != Priority.NONE && priority != Priority.HIGH) {
+                Lane lane = new Lane(priority, new ArrayBlockingQueue<>(laneCapacity));
+                lanes.put(priority, lane);
+                schedulingOrder.add(lane);
+            }
+        }
+        schedulingOrder.sort((lane1, lane2) -> Integer.compare(lane2.weight, lane1.weight));
+        startWorker(threadFactory, pendingHighMessages, highLane.queue::poll);
+        for (int i = 0; i < workerCount; i++) {
+            startWorker(threadFactory, pendingMessages, this::next);
+        }
+    }
+
+    public BiConsumer<String, byte[]> dispatch(Priority priority, BiConsumer<String, byte[]> messageConsumer) {
+        if (priority == Priority.NONE) {
+            return messageConsumer;
+        }
+        Lane lane = lanes.get(priority);
+        return (topic, message) -> enqueue(lane, DispatchContext.wrap(() -> messageConsumer.accept(topic, message)));
+    }
+
+    /**
+     * Stops the workers after the running messages and dispatches the queued messages on the caller thread.
+     */
+    public void shutdown() {
+        running = false;
+        pendingHighMessages.release();
+        pendingMessages.release(workers.size());
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        Runnable task;
+        while ((task = highLane.queue.poll()) != null) {
+            run(task);
+        }
+        while ((task = next()) != null) {
+            run(task);
+        }
+    }
+
+    private void enqueue(Lane lane, Runnable task) {
+        if (lane == highLane) {
+            highLane.queue.add(task);
+            pendingHighMessages.release();
+            return;
+        }
+        while (!lane.queue.offer(task)) {
+            // a worker may take the oldest message first, then the offer is retried
+            if (lane.queue.poll() != null) {
+                droppedMessages.increment();
+                long suppressed = overflowLog.tryAcquire();
+                if (suppressed >= 0) {
+                    log.warn("Dispatch lane {} is full, oldest message dropped ({} drops since the last warning)", lane.priority, suppressed);
+                }
+            }
+        }
+        // a dropped message leaves its permit behind, the worker taking it finds no message
+        pendingMessages.release();
+    }
+
+    private void startWorker(ThreadFactory threadFactory, Semaphore pending, Supplier<Runnable> next) {
+        Thread worker = threadFactory.newThread(() -> work(pending, next));
+        workers.add(worker);
+        worker.start();
+    }
+
+    private void work(Semaphore pending, Supplier<Runnable> next) {
+        while (true) {
+            try {
+                pending.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            Runnable task = next.get();
+            if (task != null) {
+                run(task);
+            }
+        }
+    }
+
+    private synchronized Runnable next() {
+        // the credits are refilled when the lanes holding messages have spent theirs
+        for (int round = 0; round < 2; round++) {
+            for (Lane lane : schedulingOrder) {
+                if (lane.credit > 0) {
+                    Runnable task = lane.queue.poll();
+                    if (task != null) {
+                        lane.credit--;
+                        return task;
+                    }
+                }
+            }
+            schedulingOrder.forEach(lane -> lane.credit = lane.weight);
+        }
+        return null;
+    }
+
+    private void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Cannot dispatch message", e);
+        }
+    }
+
+    private static class Lane {
+
+        private final Priority priority;
+
+        private final int weight;
+
+        private final BlockingQueue<Runnable> queue;
+
+        private int credit;
+
+        Lane(Priority priority, BlockingQueue<Runnable> queue) {
+            this.priority = priority;
+            this.weight = priority.getWeight();
+            this.credit = weight;
+            this.queue = queue;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.celadonsea.messagingframework.listener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket holding up to one second of permits. A caller finding the bucket empty is told how
+ * long to wait for the next permit, nothing is reserved for it.
+ */
+public class RateLimiter {
+
+    private final long permitIntervalNanos;
+
+    private final long burstNanos;
+
+    private long nextFreeNanos;
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + permitsPerSecond);
+        }
+        permitIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        burstNanos = (Math.max(1, (long) permitsPerSecond) - 1) * permitIntervalNanos;
+        nextFreeNanos = System.nanoTime() - burstNanos;
+    }
+
+    /**
+     * @return 0 if a permit is taken, otherwise the nanoseconds until the next permit is free
+     */
+    public synchronized long tryAcquire(long nowNanos) {
+        long permitNanos = Math.max(nextFreeNanos, nowNanos - burstNanos);
+        if (permitNanos > nowNanos) {
+            return permitNanos - nowNanos;
+        }
+        nextFreeNanos = permitNanos + permitIntervalNanos;
+        return 0;
+    }
+}
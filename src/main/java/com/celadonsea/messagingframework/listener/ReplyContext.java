@@ -0,0 +1,42 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Correlation of a request or reply message, bound to the dispatching thread like the {@link MessageTrace}.
+ */
+@Getter
+@AllArgsConstructor
+public class ReplyContext {
+
+    private static final ThreadLocal<ReplyContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The topic the reply is expected on, null for a reply message.
+     */
+    private String replyTopic;
+
+    private long correlationId;
+
+    /**
+     * @return the correlation of the message dispatched on this thread or null if it is not correlated
+     */
+    public static ReplyContext current() {
+        return CURRENT.get();
+    }
+
+    public static void runWith(ReplyContext replyContext, Runnable runnable) {
+        ReplyContext previous = CURRENT.get();
+        CURRENT.set(replyContext);
+        try {
+            runnable.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
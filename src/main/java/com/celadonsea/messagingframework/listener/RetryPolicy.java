@@ -0,0 +1,27 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class RetryPolicy {
+
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 1, 0);
+
+    private int maxAttempts;
+
+    private long delayMs;
+
+    private double multiplier;
+
+    private long maxDelayMs;
+
+    /**
+     * @param attempt the failed attempt, starting from 1
+     * @return the delay before the next attempt
+     */
+    public long getDelayMs(int attempt) {
+        return (long) Math.min(maxDelayMs, delayMs * Math.pow(multiplier, attempt - 1));
+    }
+}
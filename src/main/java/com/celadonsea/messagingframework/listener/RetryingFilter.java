@@ -0,0 +1,126 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.metrics.ListenerFailures;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Handles the failures of a listener: retries as the retry policy allows and hands the message to
+ * the dead letter handler when it runs out of attempts. The scheduler only triggers a retry, the
+ * attempt runs on the executor so a slow listener does not hold up the other scheduled tasks. A
+ * throttled listener reports its failure from the worker thread, so every attempt passes the throttle.
+ * A batch listener has no message delegate, its batches are delivered through
+ * {@link #acceptBatch(String, Runnable, Consumer)}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RetryingFilter implements BiConsumer<String, byte[]> {
+
+    private final BiConsumer<String, byte[]> delegate;
+
+    private final RetryPolicy retryPolicy;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Executor executor;
+
+    private final DeadLetterHandler deadLetterHandler;
+
+    private final ListenerFailures listenerFailures;
+
+    @Override
+    public void accept(String topic, byte[] message) {
+        attempt(topic, message, 1);
+    }
+
+    /**
+     * Runs a batch as a single attempt and retries it as a whole. When the batch runs out of attempts
+     * the dead letter callback gets the cause, to hand the messages of the batch over one by one.
+     */
+    public void acceptBatch(String topic, Runnable batch, Consumer<RuntimeException> deadLetter) {
+        attemptBatch(topic, batch, deadLetter, 1);
+    }
+
+    /**
+     * Counts a message failing before its listener is called and hands it to the dead letter handler.
+     */
+    public void reject(String topic, byte[] message, RuntimeException cause) {
+        listenerFailures.getFailures().increment();
+        deadLetter(topic, message, cause);
+    }
+
+    private void attemptBatch(String topic, Runnable batch, Consumer<RuntimeException> deadLetter, int attempt) {
+        try {
+            batch.run();
+        } catch (RuntimeException e) {
+            failed(topic, attempt, e, () -> attemptBatch(topic, batch, deadLetter, attempt + 1), deadLetter);
+        }
+    }
+
+    private void attempt(String topic, byte[] message, int attempt) {
+        if (delegate instanceof ThrottlingFilter) {
+            ((ThrottlingFilter) delegate).accept(topic, message, e -> failed(topic, message, attempt, e));
+            return;
+        }
+        try {
+            delegate.accept(topic, message);
+        } catch (RuntimeException e) {
+            failed(topic, message, attempt, e);
+        }
+    }
+
+    private void failed(String topic, byte[] message, int attempt, RuntimeException cause) {
+        failed(topic, attempt, cause, () -> attempt(topic, message, attempt + 1), e -> deadLetter(topic, message, e));
+    }
+
+    private void failed(String topic, int attempt, RuntimeException cause, Runnable nextAttempt, Consumer<RuntimeException> deadLetter) {
+        listenerFailures.getFailures().increment();
+        boolean retryable = !(cause instanceof ListenerException) || ((ListenerException) cause).isRetryable();
+        if (retryable && attempt < retryPolicy.getMaxAttempts() && retry(attempt, cause, nextAttempt, deadLetter)) {
+            log.warn("Listener failed on topic {} in attempt {} of {}", topic, attempt, retryPolicy.getMaxAttempts(), cause);
+        } else {
+            deadLetter.accept(cause);
+        }
+    }
+
+    private boolean retry(int attempt, RuntimeException cause, Runnable nextAttempt, Consumer<RuntimeException> deadLetter) {
+        Runnable retry = DispatchContext.wrap(nextAttempt);
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    executor.execute(retry);
+                } catch (RejectedExecutionException e) {
+                    deadLetter.accept(cause);
+                }
+            }, retryPolicy.getDelayMs(attempt), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        listenerFailures.getRetries().increment();
+        return true;
+    }
+
+    /**
+     * Hands the message to the dead letter handler, or drops it when the listener has none.
+     */
+    public void deadLetter(String topic, byte[] message, RuntimeException cause) {
+        if (deadLetterHandler == null) {
+            log.error("Cannot handle message on topic {}, message dropped", topic, cause);
+            return;
+        }
+        log.error("Cannot handle message on topic {}, message sent to dead letter", topic, cause);
+        try {
+            deadLetterHandler.accept(topic, message, cause);
+            listenerFailures.getDeadLetters().increment();
+        } catch (RuntimeException e) {
+            log.error("Cannot send dead letter of topic {}", topic, e);
+        }
+    }
+}
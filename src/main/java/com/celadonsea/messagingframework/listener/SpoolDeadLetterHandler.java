@@ -0,0 +1,40 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes every dead letter to its own file in the spool directory: the topic in the first line,
+ * followed by the message.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SpoolDeadLetterHandler implements DeadLetterHandler {
+
+    private final Path directory;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Override
+    public void accept(String topic, byte[] message, Throwable cause) {
+        Path file = directory.resolve(System.currentTimeMillis() + "-" + sequence.incrementAndGet() + ".msg");
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream outputStream = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW)) {
+                outputStream.write(topic.getBytes(StandardCharsets.UTF_8));
+                outputStream.write('\n');
+                outputStream.write(message);
+            }
+        } catch (IOException e) {
+            log.error("Cannot spool dead letter of topic {} to {}", topic, file, e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Broker side filters to subscribe and to unsubscribe after a local subscription change.
+ */
+@Getter
+@AllArgsConstructor
+public class SubscriptionChange {
+
+    private List<String> subscribed;
+
+    private List<String> unsubscribed;
+
+    public boolean isEmpty() {
+        return subscribed.isEmpty() && unsubscribed.isEmpty();
+    }
+}
@@ -0,0 +1,195 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.client.Subscription;
+import com.celadonsea.messagingframework.client.SubscriptionHandle;
+import com.celadonsea.messagingframework.core.BoundedCache;
+import com.celadonsea.messagingframework.topic.TopicFormat;
+import com.celadonsea.messagingframework.topic.TopicMatcher;
+import com.celadonsea.messagingframework.topic.TopicTrie;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Local subscriptions of a client. Any number of consumers can be registered on the same or on
+ * overlapping filters. Only the filters not covered by another filter are subscribed at the broker,
+ * every incoming message is dispatched locally to all matching consumers.
+ * <p>
+ * Changes are serialized and publish a new immutable index, message dispatching reads the
+ * current index without locking. The consumers matched by an incoming topic are cached with the
+ * index, so a changed index starts with an empty cache.
+ */
+public class SubscriptionRegistry {
+
+    private static final int DISPATCH_CACHE_SIZE = 10_000;
+
+    private final TopicFormat topicFormat;
+
+    private TopicTrie<BiConsumer<String, byte[]>> index;
+
+    private volatile Snapshot snapshot;
+
+    private final Map<String, Integer> consumerCounts = new LinkedHashMap<>();
+
+    private final Set<String> brokerFilters = new LinkedHashSet<>();
+
+    public SubscriptionRegistry(TopicFormat topicFormat) {
+        this.topicFormat = topicFormat;
+        this.index = new TopicTrie<>(topicFormat);
+        this.snapshot = new Snapshot(index);
+    }
+
+    public synchronized SubscriptionChange add(String filter, BiConsumer<String, byte[]> consumer) {
+        ChangeCollector changeCollector = new ChangeCollector();
+        addFilter(filter, consumer, changeCollector);
+        return publish(changeCollector);
+    }
+
+    public synchronized SubscriptionChange addAll(Collection<Subscription> subscriptions) {
+        ChangeCollector changeCollector = new ChangeCollector();
+        for (Subscription subscription : subscriptions) {
+            addFilter(subscription.getTopic(), subscription.getMessageConsumer(), changeCollector);
+        }
+        return publish(changeCollector);
+    }
+
+    public synchronized SubscriptionChange remove(String filter, BiConsumer<String, byte[]> consumer) {
+        ChangeCollector changeCollector = new ChangeCollector();
+        removeFilter(filter, consumer, changeCollector);
+        return publish(changeCollector);
+    }
+
+    public synchronized SubscriptionChange removeAll(Collection<SubscriptionHandle> subscriptionHandles) {
+        ChangeCollector changeCollector = new ChangeCollector();
+        for (SubscriptionHandle subscriptionHandle : subscriptionHandles) {
+            removeFilter(subscriptionHandle.getTopic(), subscriptionHandle.getMessageConsumer(), changeCollector);
+        }
+        return publish(changeCollector);
+    }
+
+    public List<BiConsumer<String, byte[]>> match(String topic) {
+        Snapshot current = snapshot;
+        return current.dispatchCache.computeIfAbsent(topic, current::matchIndex);
+    }
+
+    public synchronized Set<String> getBrokerFilters() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(brokerFilters));
+    }
+
+    private SubscriptionChange publish(ChangeCollector changeCollector) {
+        if (snapshot.index != index) {
+            snapshot = new Snapshot(index);
+        }
+        return changeCollector.toSubscriptionChange();
+    }
+
+    private void addFilter(String filter, BiConsumer<String, byte[]> consumer, ChangeCollector changeCollector) {
+        index = index.add(filter, consumer);
+        if (consumerCounts.merge(filter, 1, Integer::sum) > 1 || isCoveredByBrokerFilter(filter)) {
+            return;
+        }
+        Iterator<String> iterator = brokerFilters.iterator();
+        while (iterator.hasNext()) {
+            String brokerFilter = iterator.next();
+            if (TopicMatcher.covers(filter, brokerFilter, topicFormat)) {
+                iterator.remove();
+                changeCollector.unsubscribed(brokerFilter);
+            }
+        }
+        brokerFilters.add(filter);
+        changeCollector.subscribed(filter);
+    }
+
+    private void removeFilter(String filter, BiConsumer<String, byte[]> consumer, ChangeCollector changeCollector) {
+        TopicTrie<BiConsumer<String, byte[]>> newIndex = index.remove(filter, consumer);
+        if (newIndex == index) {
+            return;
+        }
+        index = newIndex;
+        if (consumerCounts.merge(filter, -1, Integer::sum) > 0) {
+            return;
+        }
+        consumerCounts.remove(filter);
+        if (!brokerFilters.remove(filter)) {
+            return;
+        }
+        changeCollector.unsubscribed(filter);
+
+        // the filters covered only by the removed one must be subscribed at the broker again
+        List<String> uncovered = new ArrayList<>();
+        for (String remainingFilter : consumerCounts.keySet()) {
+            if (TopicMatcher.covers(filter, remainingFilter, topicFormat) && !isCoveredByBrokerFilter(remainingFilter)) {
+                uncovered.add(remainingFilter);
+            }
+        }
+        for (String uncoveredFilter : uncovered) {
+            if (!isCoveredByOther(uncoveredFilter, uncovered)) {
+                brokerFilters.add(uncoveredFilter);
+                changeCollector.subscribed(uncoveredFilter);
+            }
+        }
+    }
+
+    private boolean isCoveredByBrokerFilter(String filter) {
+        return isCoveredByOther(filter, brokerFilters);
+    }
+
+    private boolean isCoveredByOther(String filter, Collection<String> filters) {
+        for (String other : filters) {
+            if (!other.equals(filter) && TopicMatcher.covers(other, filter, topicFormat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Snapshot {
+
+        private final TopicTrie<BiConsumer<String, byte[]>> index;
+
+        private final BoundedCache<String, List<BiConsumer<String, byte[]>>> dispatchCache = new BoundedCache<>(DISPATCH_CACHE_SIZE);
+
+        private Snapshot(TopicTrie<BiConsumer<String, byte[]>> index) {
+            this.index = index;
+        }
+
+        private List<BiConsumer<String, byte[]>> matchIndex(String topic) {
+            return Collections.unmodifiableList(index.match(topic));
+        }
+    }
+
+    /**
+     * Collects the broker side changes of a bulk operation, a filter subscribed and unsubscribed
+     * in the same operation needs no broker round trip.
+     */
+    private static class ChangeCollector {
+
+        private final Set<String> subscribed = new LinkedHashSet<>();
+
+        private final Set<String> unsubscribed = new LinkedHashSet<>();
+
+        private void subscribed(String filter) {
+            if (!unsubscribed.remove(filter)) {
+                subscribed.add(filter);
+            }
+        }
+
+        private void unsubscribed(String filter) {
+            if (!subscribed.remove(filter)) {
+                unsubscribed.add(filter);
+            }
+        }
+
+        private SubscriptionChange toSubscriptionChange() {
+            return new SubscriptionChange(new ArrayList<>(subscribed), new ArrayList<>(unsubscribed));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.core.LogThrottle;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Enforces the rate and the concurrency limit of a listener without holding the dispatching thread,
+ * which may serve every subscription of the client. Messages wait in a bounded queue and are handed
+ * to the executor when a permit is free, a rate delay is waited out on the scheduler. When the queue
+ * is full its oldest message is dropped. A failure of the listener is reported to the concurrency
+ * limiter and to the failure handler of the message.
+ */
+@Slf4j
+public class ThrottlingFilter implements BiConsumer<String, byte[]> {
+
+    private final BiConsumer<String, byte[]> delegate;
+
+    private final RateLimiter rateLimiter;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final Executor executor;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final BlockingQueue<Runnable> pendingMessages;
+
+    private final AtomicInteger drainCounter = new AtomicInteger();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private final LogThrottle overflowLog = new LogThrottle(10, TimeUnit.SECONDS);
+
+    @Getter
+    private final LongAdder droppedMessages = new LongAdder();
+
+    /**
+     * @param rateLimiter        null for no rate limit
+     * @param concurrencyLimiter null for no concurrency limit
+     */
+    public ThrottlingFilter(BiConsumer<String, byte[]> delegate,
+                            RateLimiter rateLimiter,
+                            AdaptiveConcurrencyLimiter concurrencyLimiter,
+                            Executor executor,
+                            ScheduledExecutorService scheduler,
+                            int capacity) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.pendingMessages = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void accept(String topic, byte[] message) {
+        accept(topic, message, e -> log.error("Cannot dispatch throttled message on topic {}", topic, e));
+    }
+
+    /**
+     * Throttles the message and hands a failure of the listener to the failure handler, on the thread
+     * that ran the listener.
+     */
+    public void accept(String topic, byte[] message, Consumer<RuntimeException> failureHandler) {
+        Runnable task = DispatchContext.wrap(() -> {
+            try {
+                delegate.accept(topic, message);
+            } catch (RuntimeException e) {
+                failureHandler.accept(e);
+                throw e;
+            }
+        });
+        while (!pendingMessages.offer(task)) {
+            if (pendingMessages.poll() != null) {
+                droppedMessages.increment();
+                long suppressed = overflowLog.tryAcquire();
+                if (suppressed >= 0) {
+                    log.warn("Throttled listener falls behind on topic {}, oldest message dropped ({} drops since the last warning)", topic, suppressed);
+                }
+            }
+        }
+        drain();
+    }
+
+    private void drain() {
+        if (drainCounter.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!pendingMessages.isEmpty() && tryAcquire()) {
+                Runnable task = pendingMessages.poll();
+                if (task == null) {
+                    cancelPermit();
+                    break;
+                }
+                execute(task);
+            }
+            missed = drainCounter.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private boolean tryAcquire() {
+        // a running message frees its permit and drains again
+        if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire()) {
+            return false;
+        }
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire(System.nanoTime());
+            if (waitNanos > 0) {
+                cancelPermit();
+                scheduleDrain(waitNanos);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.schedule(() -> {
+                drainScheduled.set(false);
+                drain();
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+            log.error("Cannot schedule throttled messages, the scheduler is shut down", e);
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            cancelPermit();
+            log.error("Cannot dispatch throttled message, the executor is shut down", e);
+        }
+    }
+
+    private void run(Runnable task) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            task.run();
+            failed = false;
+        } catch (RuntimeException e) {
+            // already handed to the failure handler of the message
+            log.debug("Throttled message failed", e);
+        } finally {
+            if (concurrencyLimiter != null) {
+                concurrencyLimiter.release(System.nanoTime() - start, failed);
+            }
+            drain();
+        }
+    }
+
+    private void cancelPermit() {
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.cancel();
+        }
+    }
+}
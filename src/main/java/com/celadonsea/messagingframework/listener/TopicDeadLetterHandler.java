@@ -0,0 +1,20 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.client.MessageClient;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes dead letters unchanged, under the dead letter topic followed by the original topic.
+ */
+@RequiredArgsConstructor
+public class TopicDeadLetterHandler implements DeadLetterHandler {
+
+    private final MessageClient messageClient;
+
+    private final String deadLetterTopic;
+
+    @Override
+    public void accept(String topic, byte[] message, Throwable cause) {
+        messageClient.publish(deadLetterTopic + messageClient.topicFormat().getLevelSeparator() + topic, message);
+    }
+}
@@ -0,0 +1,87 @@
+package com.celadonsea.messagingframework.listener;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+
+/**
+ * Dispatches every message of a listener on its own virtual thread, so blocking handlers do not
+ * hold the client thread. Virtual threads are looked up by reflection, the framework itself stays
+ * on Java 8 and the dispatcher is only available when running on Java 21 or later.
+ */
+@Slf4j
+public class VirtualThreadDispatcher {
+
+    private final ExecutorService executor;
+
+    VirtualThreadDispatcher(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public static boolean isSupported() {
+        return createVirtualThreadFactory("") != null;
+    }
+
+    public static VirtualThreadDispatcher create(String threadNamePrefix) {
+        ThreadFactory threadFactory = createVirtualThreadFactory(threadNamePrefix);
+        if (threadFactory == null) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+        }
+        try {
+            return new VirtualThreadDispatcher((ExecutorService) Executors.class
+                .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, threadFactory));
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later", e);
+        }
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // before Java 21 the API is missing or a disabled preview
+            return null;
+        }
+    }
+
+    /**
+     * Starts a virtual thread for every message. A listener with a concurrency limit is throttled on
+     * the {@link #getExecutor() executor} instead, so the dispatching thread never waits for a slot.
+     */
+    public BiConsumer<String, byte[]> dispatch(BiConsumer<String, byte[]> messageConsumer) {
+        return (topic, message) -> {
+            Runnable task = DispatchContext.wrap(() -> messageConsumer.accept(topic, message));
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        log.error("Cannot dispatch message on topic {}", topic, e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.error("Cannot dispatch message on topic {}, dispatcher is shut down", topic, e);
+            }
+        };
+    }
+
+    /**
+     * @return executor starting a virtual thread for every task, for stages dispatching messages themselves
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
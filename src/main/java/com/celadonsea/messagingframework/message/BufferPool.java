@@ -0,0 +1,38 @@
+package com.celadonsea.messagingframework.message;
+
+/**
+ * Thread-local scratch buffers for transient encoding work. A buffer belongs to the thread
+ * between {@link #acquire(int)} and {@link #release(byte[])} and must not escape it: messages
+ * handed to the client or to the listeners are always exactly sized copies, because they may be
+ * kept by asynchronous stages. Buffers above the retention limit are left to the garbage
+ * collector, so a single large message does not pin memory on every thread.
+ */
+public final class BufferPool {
+
+    private static final int MIN_SIZE = 1024;
+
+    private static final int MAX_RETAINED_SIZE = 256 * 1024;
+
+    private static final ThreadLocal<byte[]> CACHED_BUFFER = new ThreadLocal<>();
+
+    private BufferPool() {}
+
+    public static byte[] acquire(int minSize) {
+        byte[] buffer = CACHED_BUFFER.get();
+        if (buffer != null && buffer.length >= minSize) {
+            CACHED_BUFFER.set(null);
+            return buffer;
+        }
+        return new byte[Math.max(minSize, MIN_SIZE)];
+    }
+
+    public static void release(byte[] buffer) {
+        if (buffer.length > MAX_RETAINED_SIZE) {
+            return;
+        }
+        byte[] cachedBuffer = CACHED_BUFFER.get();
+        if (cachedBuffer == null || cachedBuffer.length < buffer.length) {
+            CACHED_BUFFER.set(buffer);
+        }
+    }
+}
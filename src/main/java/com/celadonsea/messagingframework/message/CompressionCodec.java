@@ -0,0 +1,141 @@
+package com.celadonsea.messagingframework.message;
+
+import com.celadonsea.messagingframework.topic.TopicFormat;
+import com.celadonsea.messagingframework.topic.TopicTrie;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Deflate compression of the messages published on the configured topic filters, in a compressed
+ * {@link MessageEnvelope}. A filter may come with a preset dictionary of typical content, which
+ * makes small messages compressible. The zlib stream names its dictionary by Adler-32 checksum, so
+ * the receiver picks the dictionary without further negotiation. A message is sent uncompressed
+ * when compression does not make it smaller.
+ */
+public class CompressionCodec {
+
+    public static final CompressionCodec NONE = new CompressionCodec(Collections.emptyMap(), new TopicFormat('/', '+', '#'));
+
+    public static final int DEFAULT_MAX_DECOMPRESSED_SIZE = 16 * 1024 * 1024;
+
+    private static final byte[] NO_DICTIONARY = new byte[0];
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(Deflater::new);
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final TopicTrie<byte[]> compressedTopics;
+
+    private final Map<Integer, byte[]> dictionaries = new HashMap<>();
+
+    private final boolean empty;
+
+    private final int maxDecompressedSize;
+
+    public CompressionCodec(Map<String, byte[]> compressedTopics, TopicFormat topicFormat) {
+        this(compressedTopics, topicFormat, DEFAULT_MAX_DECOMPRESSED_SIZE);
+    }
+
+    /**
+     * @param compressedTopics    the topic filters to compress with their dictionary, empty or null for none
+     * @param maxDecompressedSize the size a received message may inflate to, a deflate bomb stops there
+     */
+    public CompressionCodec(Map<String, byte[]> compressedTopics, TopicFormat topicFormat, int maxDecompressedSize) {
+        TopicTrie<byte[]> trie = new TopicTrie<>(topicFormat);
+        for (Map.Entry<String, byte[]> compressedTopic : compressedTopics.entrySet()) {
+            byte[] dictionary = compressedTopic.getValue() == null ? NO_DICTIONARY : compressedTopic.getValue();
+            trie = trie.add(compressedTopic.getKey(), dictionary);
+            if (dictionary.length > 0) {
+                dictionaries.put(getDictionaryId(dictionary), dictionary);
+            }
+        }
+        this.compressedTopics = trie;
+        this.empty = compressedTopics.isEmpty();
+        this.maxDecompressedSize = maxDecompressedSize;
+    }
+
+    public byte[] encode(String topic, byte[] message) {
+        if (empty || message.length <= MessageEnvelope.FIXED_HEADER_LENGTH) {
+            return message;
+        }
+        List<byte[]> dictionary = compressedTopics.match(topic);
+        if (dictionary.isEmpty()) {
+            return message;
+        }
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        if (dictionary.get(0).length > 0) {
+            deflater.setDictionary(dictionary.get(0));
+        }
+        deflater.setInput(message);
+        deflater.finish();
+        // the output is limited to the size the compressed envelope may get, a message that does not fit is sent as it is
+        byte[] compressed = BufferPool.acquire(message.length);
+        try {
+            int compressedLength = deflater.deflate(compressed, 0, message.length - MessageEnvelope.FIXED_HEADER_LENGTH);
+            if (!deflater.finished()) {
+                return message;
+            }
+            return MessageEnvelope.wrapCompressed(compressed, compressedLength);
+        } finally {
+            BufferPool.release(compressed);
+        }
+    }
+
+    /**
+     * @param compressedPayload the payload of a compressed envelope
+     * @return the original message
+     * @throws DataFormatException if the payload is not a valid zlib stream, its dictionary is unknown
+     *                             or it inflates to more than the maximum size
+     */
+    public byte[] decode(byte[] compressedPayload) throws DataFormatException {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(compressedPayload);
+        byte[] message = BufferPool.acquire((int) Math.min(compressedPayload.length * 4L, maxDecompressedSize));
+        // a pooled buffer may be larger than the maximum, the inflated data must stay within both
+        int limit = Math.min(message.length, maxDecompressedSize);
+        int length = 0;
+        try {
+            while (!inflater.finished()) {
+                if (length == limit) {
+                    if (limit == maxDecompressedSize) {
+                        throw new DataFormatException("Compressed message inflates to more than " + maxDecompressedSize + " bytes");
+                    }
+                    message = Arrays.copyOf(message, (int) Math.min(message.length * 2L, maxDecompressedSize));
+                    limit = message.length;
+                }
+                int inflated = inflater.inflate(message, length, limit - length);
+                if (inflated == 0) {
+                    if (inflater.needsDictionary()) {
+                        byte[] dictionary = dictionaries.get(inflater.getAdler());
+                        if (dictionary == null) {
+                            throw new DataFormatException("Unknown compression dictionary " + Integer.toHexString(inflater.getAdler()));
+                        }
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new DataFormatException("Truncated compressed message");
+                    }
+                }
+                length += inflated;
+            }
+            return Arrays.copyOf(message, length);
+        } finally {
+            BufferPool.release(message);
+        }
+    }
+
+    private static int getDictionaryId(byte[] dictionary) {
+        Adler32 adler32 = new Adler32();
+        adler32.update(dictionary);
+        return (int) adler32.getValue();
+    }
+}
@@ -1,11 +1,13 @@
 package com.celadonsea.messagingframework.message;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Getter
 @Setter
@@ -16,5 +18,25 @@ public class MessageContext {
 
     private String subscribedTopic;
 
-    private Map<String, String> parameterMap = new HashMap<>();
+    private Map<String, String> parameterMap;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Supplier<Map<String, String>> parameterSupplier;
+
+    /**
+     * Context of a received message, the topic variables are parsed when they are first read.
+     */
+    public MessageContext(String topic, String subscribedTopic, Supplier<Map<String, String>> parameterSupplier) {
+        this.topic = topic;
+        this.subscribedTopic = subscribedTopic;
+        this.parameterSupplier = parameterSupplier;
+    }
+
+    public Map<String, String> getParameterMap() {
+        if (parameterMap == null) {
+            parameterMap = parameterSupplier == null ? new HashMap<>() : parameterSupplier.get();
+        }
+        return parameterMap;
+    }
 }
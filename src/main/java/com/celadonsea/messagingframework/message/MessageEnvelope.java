@@ -0,0 +1,159 @@
+package com.celadonsea.messagingframework.message;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary header in front of the payload for metadata that MQTT 3 cannot carry.
+ * <pre>
+ * magic (0x00 'M' 'F') | version | flags | header length (2 bytes) | header fields | payload
+ * </pre>
+ * The header fields present are selected by the flags, in flag order: publish timestamp, correlation
+ * id and the length prefixed reply topic. JSON and text payloads never start with a zero byte, so
+ * plain messages are recognized by the first byte already. The payload of a compressed envelope is a
+ * zlib stream of the original message, which may be an envelope itself.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MessageEnvelope {
+
+    public static final int FLAG_TRACED = 1;
+
+    public static final int FLAG_COMPRESSED = 2;
+
+    public static final int FLAG_CORRELATED = 4;
+
+    public static final int FLAG_REPLY_TO = 8;
+
+    private static final byte[] MAGIC = {0x00, 'M', 'F'};
+
+    private static final byte VERSION = 1;
+
+    static final int FIXED_HEADER_LENGTH = MAGIC.length + 4;
+
+    private int flags;
+
+    private long publishTimestamp;
+
+    private long correlationId;
+
+    private String replyTopic;
+
+    private byte[] payload;
+
+    public boolean isTraced() {
+        return (flags & FLAG_TRACED) != 0;
+    }
+
+    public boolean isCompressed() {
+        return (flags & FLAG_COMPRESSED) != 0;
+    }
+
+    public boolean isCorrelated() {
+        return (flags & FLAG_CORRELATED) != 0;
+    }
+
+    public static byte[] wrap(byte[] payload, long publishTimestamp) {
+        int headerLength = FIXED_HEADER_LENGTH + Long.BYTES;
+        ByteBuffer message = ByteBuffer.allocate(headerLength + payload.length);
+        message.put(MAGIC)
+            .put(VERSION)
+            .put((byte) FLAG_TRACED)
+            .putShort((short) headerLength)
+            .putLong(publishTimestamp)
+            .put(payload);
+        return message.array();
+    }
+
+    public static byte[] wrapCompressed(byte[] compressedPayload, int compressedLength) {
+        ByteBuffer message = ByteBuffer.allocate(FIXED_HEADER_LENGTH + compressedLength);
+        message.put(MAGIC)
+            .put(VERSION)
+            .put((byte) FLAG_COMPRESSED)
+            .putShort((short) FIXED_HEADER_LENGTH)
+            .put(compressedPayload, 0, compressedLength);
+        return message.array();
+    }
+
+    public static byte[] wrapRequest(byte[] payload, String replyTopic, long correlationId) {
+        byte[] encodedReplyTopic = replyTopic.getBytes(StandardCharsets.UTF_8);
+        int headerLength = FIXED_HEADER_LENGTH + Long.BYTES + Short.BYTES + encodedReplyTopic.length;
+        ByteBuffer message = ByteBuffer.allocate(headerLength + payload.length);
+        message.put(MAGIC)
+            .put(VERSION)
+            .put((byte) (FLAG_CORRELATED | FLAG_REPLY_TO))
+            .putShort((short) headerLength)
+            .putLong(correlationId)
+            .putShort((short) encodedReplyTopic.length)
+            .put(encodedReplyTopic)
+            .put(payload);
+        return message.array();
+    }
+
+    public static byte[] wrapReply(byte[] payload, long correlationId) {
+        int headerLength = FIXED_HEADER_LENGTH + Long.BYTES;
+        ByteBuffer message = ByteBuffer.allocate(headerLength + payload.length);
+        message.put(MAGIC)
+            .put(VERSION)
+            .put((byte) FLAG_CORRELATED)
+            .putShort((short) headerLength)
+            .putLong(correlationId)
+            .put(payload);
+        return message.array();
+    }
+
+    /**
+     * @return the envelope or null if the message is a plain payload, or its header does not fit
+     */
+    public static MessageEnvelope unwrap(byte[] message) {
+        if (message.length < FIXED_HEADER_LENGTH
+            || message[0] != MAGIC[0] || message[1] != MAGIC[1] || message[2] != MAGIC[2]
+            || message[3] != VERSION) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.wrap(message, MAGIC.length + 1, FIXED_HEADER_LENGTH - MAGIC.length - 1);
+        int flags = header.get() & 0xff;
+        int headerLength = header.getShort() & 0xffff;
+        if (headerLength < FIXED_HEADER_LENGTH || headerLength > message.length) {
+            return null;
+        }
+        ByteBuffer fields = ByteBuffer.wrap(message, FIXED_HEADER_LENGTH, headerLength - FIXED_HEADER_LENGTH);
+        // binary payloads of other publishers may start like an envelope, every field must fit the header
+        long publishTimestamp = 0;
+        if ((flags & FLAG_TRACED) != 0) {
+            if (fields.remaining() < Long.BYTES) {
+                return null;
+            }
+            publishTimestamp = fields.getLong();
+        }
+        long correlationId = 0;
+        if ((flags & FLAG_CORRELATED) != 0) {
+            if (fields.remaining() < Long.BYTES) {
+                return null;
+            }
+            correlationId = fields.getLong();
+        }
+        String replyTopic = null;
+        if ((flags & FLAG_REPLY_TO) != 0) {
+            if (fields.remaining() < Short.BYTES) {
+                return null;
+            }
+            int replyTopicLength = fields.getShort() & 0xffff;
+            if (fields.remaining() < replyTopicLength) {
+                return null;
+            }
+            replyTopic = new String(message, fields.position(), replyTopicLength, StandardCharsets.UTF_8);
+        }
+        return new MessageEnvelope(
+            flags,
+            publishTimestamp,
+            correlationId,
+            replyTopic,
+            Arrays.copyOfRange(message, headerLength, message.length));
+    }
+}
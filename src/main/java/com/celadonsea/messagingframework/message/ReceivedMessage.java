@@ -0,0 +1,13 @@
+package com.celadonsea.messagingframework.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ReceivedMessage {
+
+    private String topic;
+
+    private byte[] payload;
+}
@@ -0,0 +1,27 @@
+package com.celadonsea.messagingframework.message;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class WindowAggregate {
+
+    private String key;
+
+    private long windowStart;
+
+    private long windowEnd;
+
+    private long count;
+
+    private double sum;
+
+    private double min;
+
+    private double max;
+
+    public double getMean() {
+        return sum / count;
+    }
+}
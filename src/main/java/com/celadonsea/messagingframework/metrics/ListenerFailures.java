@@ -0,0 +1,15 @@
+package com.celadonsea.messagingframework.metrics;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+@Getter
+public class ListenerFailures {
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder deadLetters = new LongAdder();
+}
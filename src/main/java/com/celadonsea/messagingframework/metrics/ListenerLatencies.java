@@ -0,0 +1,18 @@
+package com.celadonsea.messagingframework.metrics;
+
+import lombok.Getter;
+
+/**
+ * Latencies of traced messages of one listener. Broker transit is the time between publishing
+ * and receiving the message measured with the clocks of the two hosts, queueing is the time
+ * between receiving and starting the dispatch, handler time includes the body decoding.
+ */
+@Getter
+public class ListenerLatencies {
+
+    private final LatencyHistogram brokerTransit = new LatencyHistogram();
+
+    private final LatencyHistogram queueing = new LatencyHistogram();
+
+    private final LatencyHistogram handler = new LatencyHistogram();
+}
@@ -0,0 +1,147 @@
+package com.celadonsea.messagingframework.processor;
+
+import com.celadonsea.messagingframework.annotation.BatchListener;
+import com.celadonsea.messagingframework.annotation.Listener;
+import com.celadonsea.messagingframework.annotation.MessagingController;
+import com.celadonsea.messagingframework.annotation.WindowedListener;
+import com.celadonsea.messagingframework.scanner.ListenerIndex;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a {@link ListenerIndex} for every messaging controller, so listener registration at
+ * startup does not need to walk all methods of the controller class hierarchy. Controllers whose
+ * listener methods cannot be referenced from their package get no index and are scanned by
+ * reflection.
+ */
+@SupportedAnnotationTypes("com.celadonsea.messagingframework.annotation.MessagingController")
+public class ListenerIndexProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(MessagingController.class)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                writeIndex((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    private void writeIndex(TypeElement controller) {
+        PackageElement controllerPackage = processingEnv.getElementUtils().getPackageOf(controller);
+        if (!isAccessible(controller, controllerPackage)) {
+            return;
+        }
+        List<CodeBlock> lookups = new ArrayList<>();
+        for (TypeElement type = controller; type != null; type = getSuperclass(type)) {
+            for (Element member : type.getEnclosedElements()) {
+                if (isListenerMethod(member)) {
+                    if (!isAccessible(type, controllerPackage)) {
+                        return;
+                    }
+                    lookups.add(createLookup(type, (ExecutableElement) member));
+                }
+            }
+        }
+
+        String packageName = controllerPackage.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(controller).toString();
+        String indexName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+            + ListenerIndex.CLASS_NAME_SUFFIX;
+
+        CodeBlock.Builder methods = CodeBlock.builder().add("return new $T[] {", Method.class);
+        for (int index = 0; index < lookups.size(); index++) {
+            methods.add(index == 0 ? "\n$>$L" : ",\n$L", lookups.get(index));
+        }
+        methods.add(lookups.isEmpty() ? "};\n" : "$<\n};\n");
+
+        TypeSpec listenerIndex = TypeSpec.classBuilder(indexName)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addSuperinterface(ListenerIndex.class)
+            .addOriginatingElement(controller)
+            .addMethod(MethodSpec.methodBuilder("getListenerMethods")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(Method[].class)
+                .addException(NoSuchMethodException.class)
+                .addCode(methods.build())
+                .build())
+            .build();
+        try {
+            JavaFile.builder(packageName, listenerIndex).build().writeTo(processingEnv.getFiler());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write listener index: " + e.getMessage(), controller);
+        }
+    }
+
+    private boolean isListenerMethod(Element member) {
+        return member.getKind() == ElementKind.METHOD &&
+            (member.getAnnotation(Listener.class) != null
+                || member.getAnnotation(BatchListener.class) != null
+                || member.getAnnotation(WindowedListener.class) != null);
+    }
+
+    private CodeBlock createLookup(TypeElement declaringType, ExecutableElement method) {
+        CodeBlock.Builder lookup = CodeBlock.builder()
+            .add("$T.class.getDeclaredMethod($S", erasure(declaringType.asType()), method.getSimpleName().toString());
+        for (VariableElement parameter : method.getParameters()) {
+            lookup.add(", $T.class", erasure(parameter.asType()));
+        }
+        return lookup.add(")").build();
+    }
+
+    private TypeName erasure(TypeMirror type) {
+        return TypeName.get(processingEnv.getTypeUtils().erasure(type));
+    }
+
+    private TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superclassElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        return superclassElement.getQualifiedName().contentEquals(Object.class.getName()) ? null : superclassElement;
+    }
+
+    private boolean isAccessible(TypeElement type, PackageElement fromPackage) {
+        for (Element element = type; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!modifiers.contains(Modifier.PUBLIC) && !processingEnv.getElementUtils().getPackageOf(element).equals(fromPackage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,98 @@
+package com.celadonsea.messagingframework.scanner;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+class BatchAccumulator {
+
+    private final int maxSize;
+
+    private final long maxWaitMs;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Executor executor;
+
+    private final Consumer<List<BatchItem>> batchConsumer;
+
+    private final Object deliveryLock = new Object();
+
+    private List<BatchItem> items;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    BatchAccumulator(int maxSize,
+                     long maxWaitMs,
+                     ScheduledExecutorService scheduler,
+                     Executor executor,
+                     Consumer<List<BatchItem>> batchConsumer) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.maxWaitMs = maxWaitMs;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.batchConsumer = batchConsumer;
+        this.items = new ArrayList<>(maxSize);
+    }
+
+    void add(String topic, byte[] content) {
+        List<BatchItem> fullBatch = null;
+        synchronized (this) {
+            items.add(new BatchItem(topic, content));
+            if (items.size() >= maxSize) {
+                fullBatch = takeItems();
+            } else if (items.size() == 1 && maxWaitMs > 0) {
+                // the scheduler only triggers the flush, the listener runs on the executor
+                scheduledFlush = scheduler.schedule(() -> executor.execute(this::flush), maxWaitMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        deliver(fullBatch);
+    }
+
+    void flush() {
+        List<BatchItem> batch;
+        synchronized (this) {
+            batch = takeItems();
+        }
+        deliver(batch);
+    }
+
+    private List<BatchItem> takeItems() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<BatchItem> batch = items;
+        items = new ArrayList<>(maxSize);
+        return batch;
+    }
+
+    private void deliver(List<BatchItem> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+        // one batch at a time, so size triggered and timed deliveries never overlap
+        synchronized (deliveryLock) {
+            batchConsumer.accept(batch);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class BatchItem {
+
+        private final String topic;
+
+        private final byte[] content;
+    }
+}
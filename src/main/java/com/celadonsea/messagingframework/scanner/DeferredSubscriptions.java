@@ -0,0 +1,58 @@
+package com.celadonsea.messagingframework.scanner;
+
+import com.celadonsea.messagingframework.client.MessageClient;
+import com.celadonsea.messagingframework.client.Subscription;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+
+/**
+ * Subscriptions collected while the listeners are scanned. They are flushed once, as bulk
+ * subscriptions running concurrently for the different clients, every subscription added after
+ * the flush has to be made by the caller.
+ */
+@Slf4j
+class DeferredSubscriptions {
+
+    private final Map<MessageClient, List<Subscription>> pendingSubscriptions = new LinkedHashMap<>();
+
+    private boolean flushed;
+
+    synchronized boolean add(MessageClient client, String topic, BiConsumer<String, byte[]> messageConsumer) {
+        if (flushed) {
+            return false;
+        }
+        pendingSubscriptions.computeIfAbsent(client, c -> new ArrayList<>()).add(new Subscription(topic, messageConsumer));
+        return true;
+    }
+
+    CompletableFuture<Void> flush() {
+        Map<MessageClient, List<Subscription>> subscriptions;
+        synchronized (this) {
+            flushed = true;
+            subscriptions = new LinkedHashMap<>(pendingSubscriptions);
+            pendingSubscriptions.clear();
+        }
+        if (subscriptions.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(subscriptions.size(), new CustomizableThreadFactory("messaging-subscriber-"));
+        CompletableFuture<?>[] clientSubscriptions = subscriptions.entrySet().stream()
+            .map(entry -> CompletableFuture.runAsync(() -> subscribe(entry.getKey(), entry.getValue()), executor))
+            .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(clientSubscriptions).whenComplete((result, throwable) -> executor.shutdown());
+    }
+
+    private void subscribe(MessageClient client, List<Subscription> subscriptions) {
+        client.subscribe(subscriptions);
+        log.info("Flushed {} deferred subscriptions", subscriptions.size());
+    }
+}
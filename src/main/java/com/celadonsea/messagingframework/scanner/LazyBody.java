@@ -0,0 +1,24 @@
+package com.celadonsea.messagingframework.scanner;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Supplier;
+
+@RequiredArgsConstructor
+class LazyBody<T> implements Supplier<T> {
+
+    private final Supplier<T> decoder;
+
+    private boolean decoded;
+
+    private T value;
+
+    @Override
+    public synchronized T get() {
+        if (!decoded) {
+            value = decoder.get();
+            decoded = true;
+        }
+        return value;
+    }
+}
@@ -2,12 +2,19 @@ package com.celadonsea.messagingframework.scanner;
 
 import com.celadonsea.messagingframework.annotation.MessagingController;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
 
+import java.lang.reflect.Method;
+
+@Slf4j
 @RequiredArgsConstructor
-public class ListenerAnnotationProcessor implements BeanPostProcessor {
+public class ListenerAnnotationProcessor implements BeanPostProcessor, ApplicationListener<ContextRefreshedEvent> {
     // https://www.baeldung.com/spring-annotation-bean-pre-processor
 
     private final ConfigurableListableBeanFactory configurableBeanFactory;
@@ -25,10 +32,37 @@ public class ListenerAnnotationProcessor implements BeanPostProcessor {
         return bean;
     }
 
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        // the listeners are subscribed when the context is ready, the clients are subscribed concurrently
+        messageCallbackPreProcessor.flushSubscriptions().join();
+    }
+
     private void scanListenerAnnotation(Object bean) {
-        if (bean.getClass().isAnnotationPresent(MessagingController.class)) {
-            ReflectionUtils.MethodCallback methodCallback = new ListenerMethodCallback(bean, messageCallbackPreProcessor, configurableBeanFactory);
-            ReflectionUtils.doWithMethods(bean.getClass(), methodCallback);
+        MessagingController annotation = bean.getClass().getAnnotation(MessagingController.class);
+        if (annotation == null) {
+            return;
+        }
+        ListenerMethodCallback methodCallback = new ListenerMethodCallback(bean, annotation, messageCallbackPreProcessor, configurableBeanFactory);
+        Method[] listenerMethods = getIndexedListenerMethods(bean.getClass());
+        if (listenerMethods != null) {
+            for (Method method : listenerMethods) {
+                methodCallback.doWith(method);
+            }
+        } else {
+            ReflectionUtils.doWithMethods(bean.getClass(), methodCallback, ReflectionUtils.USER_DECLARED_METHODS);
+        }
+    }
+
+    static Method[] getIndexedListenerMethods(Class<?> controllerClass) {
+        try {
+            Class<?> indexClass = ClassUtils.forName(controllerClass.getName() + ListenerIndex.CLASS_NAME_SUFFIX, controllerClass.getClassLoader());
+            return ((ListenerIndex) indexClass.newInstance()).getListenerMethods();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            log.warn("Listener index of {} is unusable, scanning methods instead", controllerClass.getName(), e);
+            return null;
         }
     }
 
@@ -0,0 +1,16 @@
+package com.celadonsea.messagingframework.scanner;
+
+import java.lang.reflect.Method;
+
+/**
+ * Listener methods of a messaging controller collected at compile time by the
+ * {@link com.celadonsea.messagingframework.processor.ListenerIndexProcessor}. The index of a
+ * controller is a class in the package of the controller, named after its binary name with the
+ * {@link #CLASS_NAME_SUFFIX}.
+ */
+public interface ListenerIndex {
+
+    String CLASS_NAME_SUFFIX = "_ListenerIndex";
+
+    Method[] getListenerMethods() throws NoSuchMethodException;
+}
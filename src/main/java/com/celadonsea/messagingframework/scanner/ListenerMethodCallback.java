@@ -1,7 +1,9 @@
 package com.celadonsea.messagingframework.scanner;
 
+import com.celadonsea.messagingframework.annotation.BatchListener;
 import com.celadonsea.messagingframework.annotation.Listener;
 import com.celadonsea.messagingframework.annotation.MessagingController;
+import com.celadonsea.messagingframework.annotation.WindowedListener;
 import com.celadonsea.messagingframework.client.MessageClient;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -14,17 +16,34 @@ public class ListenerMethodCallback implements ReflectionUtils.MethodCallback {
 
     private final Object bean;
 
+    private final MessagingController annotation;
+
     private final MessageCallbackPreProcessor messageCallbackPreProcessor;
 
     private final ConfigurableListableBeanFactory configurableBeanFactory;
 
+    private MessageClient client;
+
     @Override
     public void doWith(Method method) {
-        if (!method.isAnnotationPresent(Listener.class) || !bean.getClass().isAnnotationPresent(MessagingController.class)) {
-            return;
+        Listener listener = method.getAnnotation(Listener.class);
+        if (listener != null) {
+            messageCallbackPreProcessor.processListenerMethod(bean, getClient(), method, listener, annotation.topic(), annotation.virtualThreads());
+        }
+        BatchListener batchListener = method.getAnnotation(BatchListener.class);
+        if (batchListener != null) {
+            messageCallbackPreProcessor.processBatchListenerMethod(bean, getClient(), method, batchListener, annotation.topic());
+        }
+        WindowedListener windowedListener = method.getAnnotation(WindowedListener.class);
+        if (windowedListener != null) {
+            messageCallbackPreProcessor.processWindowedListenerMethod(bean, getClient(), method, windowedListener, annotation.topic());
+        }
+    }
+
+    private MessageClient getClient() {
+        if (client == null) {
+            client = (MessageClient)configurableBeanFactory.getBean(annotation.client());
         }
-        MessagingController annotation = bean.getClass().getAnnotation(MessagingController.class);
-        MessageClient client = (MessageClient)configurableBeanFactory.getBean(annotation.client());
-        messageCallbackPreProcessor.processListenerMethod(bean, client, method, method.getAnnotation(Listener.class), annotation.topic());
+        return client;
     }
 }
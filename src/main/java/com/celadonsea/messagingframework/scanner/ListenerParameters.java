@@ -0,0 +1,56 @@
+package com.celadonsea.messagingframework.scanner;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parameters of a listener method analyzed once at registration: which artifacts of a message the
+ * method declares and a reusable argument array per dispatching thread.
+ */
+class ListenerParameters {
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final ParameterDescriptor[] descriptors;
+
+    private final boolean contextNeeded;
+
+    private final boolean topicVariablesNeeded;
+
+    // the arguments are copied into the frame of the invoked method, so the array is free again after the call
+    private final ThreadLocal<Object[]> arguments;
+
+    ListenerParameters(List<ParameterDescriptor> parameterDescriptors) {
+        this.descriptors = parameterDescriptors.toArray(new ParameterDescriptor[0]);
+        this.contextNeeded = parameterDescriptors.stream().anyMatch(ParameterDescriptor::isContext);
+        this.topicVariablesNeeded = parameterDescriptors.stream()
+            .anyMatch(descriptor -> !descriptor.isEmpty() && !descriptor.isContext() && !descriptor.isBody());
+        this.arguments = descriptors.length == 0 ? null : ThreadLocal.withInitial(() -> new Object[descriptors.length]);
+    }
+
+    ParameterDescriptor[] getDescriptors() {
+        return descriptors;
+    }
+
+    boolean isContextNeeded() {
+        return contextNeeded;
+    }
+
+    /**
+     * @return true if a topic parameter is declared, the variables of the context are resolved on demand
+     */
+    boolean isTopicVariablesNeeded() {
+        return topicVariablesNeeded;
+    }
+
+    Object[] acquireArguments() {
+        return arguments == null ? NO_ARGUMENTS : arguments.get();
+    }
+
+    /**
+     * Clears the arguments, so the array does not keep the last message reachable.
+     */
+    void releaseArguments(Object[] argumentArray) {
+        Arrays.fill(argumentArray, null);
+    }
+}
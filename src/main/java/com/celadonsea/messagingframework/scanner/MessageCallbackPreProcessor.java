@@ -1,42 +1,410 @@
 package com.celadonsea.messagingframework.scanner;
 
+import com.celadonsea.messagingframework.annotation.BatchListener;
+import com.celadonsea.messagingframework.annotation.Deduplicate;
 import com.celadonsea.messagingframework.annotation.Listener;
 import com.celadonsea.messagingframework.annotation.MessageBody;
+import com.celadonsea.messagingframework.annotation.Priority;
+import com.celadonsea.messagingframework.annotation.Retry;
 import com.celadonsea.messagingframework.annotation.TopicParameter;
+import com.celadonsea.messagingframework.annotation.WindowedListener;
 import com.celadonsea.messagingframework.client.MessageClient;
+import com.celadonsea.messagingframework.core.BoundedCache;
+import com.celadonsea.messagingframework.listener.AdaptiveConcurrencyLimiter;
+import com.celadonsea.messagingframework.listener.ConflatingFilter;
+import com.celadonsea.messagingframework.listener.DeadLetterHandler;
+import com.celadonsea.messagingframework.listener.DeduplicationCache;
+import com.celadonsea.messagingframework.listener.DeduplicationFilter;
+import com.celadonsea.messagingframework.listener.ListenerException;
+import com.celadonsea.messagingframework.listener.MessageTrace;
+import com.celadonsea.messagingframework.listener.PriorityDispatcher;
+import com.celadonsea.messagingframework.listener.RateLimiter;
+import com.celadonsea.messagingframework.listener.ReplyContext;
+import com.celadonsea.messagingframework.listener.RetryPolicy;
+import com.celadonsea.messagingframework.listener.RetryingFilter;
+import com.celadonsea.messagingframework.listener.SpoolDeadLetterHandler;
+import com.celadonsea.messagingframework.listener.ThrottlingFilter;
+import com.celadonsea.messagingframework.listener.TopicDeadLetterHandler;
+import com.celadonsea.messagingframework.listener.VirtualThreadDispatcher;
 import com.celadonsea.messagingframework.message.MessageContext;
+import com.celadonsea.messagingframework.message.MessageEnvelope;
+import com.celadonsea.messagingframework.message.WindowAggregate;
+import com.celadonsea.messagingframework.metrics.ListenerFailures;
+import com.celadonsea.messagingframework.metrics.ListenerLatencies;
 import com.celadonsea.messagingframework.topic.TopicFormat;
 import com.celadonsea.messagingframework.topic.TopicParser;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 @RequiredArgsConstructor
 public class MessageCallbackPreProcessor {
 
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)(ms|s|m|h)?");
+
+    private static final int TOPIC_VARIABLES_CACHE_SIZE = 10_000;
+
+    private static final int THROTTLED_MESSAGE_CAPACITY = 10_000;
+
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    private final List<BatchAccumulator> batchAccumulators = new CopyOnWriteArrayList<>();
+
+    private final List<WindowAggregator> windowAggregators = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private DeferredSubscriptions deferredSubscriptions;
+
+    private PriorityDispatcher priorityDispatcher;
+
+    /**
+     * Worker threads of the normal and low priority listeners, high priority listeners have a worker
+     * of their own. A single worker runs their messages one after the other, so a slow low priority
+     * listener holds up the normal priority until it returns.
+     */
+    @Setter
+    private int dispatcherThreads = 1;
+
+    @Setter
+    private int dispatchLaneCapacity = PriorityDispatcher.DEFAULT_LANE_CAPACITY;
+
+    private ExecutorService workerExecutor;
+
+    private VirtualThreadDispatcher virtualThreadDispatcher;
+
+    @Getter
+    private final Map<String, ListenerLatencies> listenerLatencies = new ConcurrentHashMap<>();
+
+    @Getter
+    private final Map<String, ListenerFailures> listenerFailures = new ConcurrentHashMap<>();
+
     public void processListenerMethod(Object handler, MessageClient client, Method method, Listener methodAnnotation, String baseTopic) {
+        processListenerMethod(handler, client, method, methodAnnotation, baseTopic, false);
+    }
+
+    public void processListenerMethod(Object handler,
+                                      MessageClient client,
+                                      Method method,
+                                      Listener methodAnnotation,
+                                      String baseTopic,
+                                      boolean virtualThreads) {
+        TopicFormat topicFormat = client.topicFormat();
+
+        String subTopic = methodAnnotation.value();
+        List<ParameterDescriptor> parameterDescriptors = new ArrayList<>();
+        for (Parameter parameter : method.getParameters()) {
+            parameterDescriptors.add(analyzeParameterType(parameter));
+        }
+        ListenerParameters parameters = new ListenerParameters(parameterDescriptors);
+        String topicDefinition = baseTopic + topicFormat.getLevelSeparator() + subTopic;
+        String subscribedTopic = TopicParser.changeSubscriptionFormatForMessageBrokers(topicDefinition, "" + topicFormat.getWildcard());
+        ListenerLatencies latencies = listenerLatencies.computeIfAbsent(getListenerName(method), name -> new ListenerLatencies());
+        BoundedCache<String, Map<String, String>> topicVariables = new BoundedCache<>(TOPIC_VARIABLES_CACHE_SIZE);
+        BiConsumer<String, byte[]> messageConsumer = (topic, message) -> subscriptionLambda(handler, client, method, parameters, topicDefinition, topic, topicFormat, topicVariables, message, latencies);
+        if (virtualThreads && !VirtualThreadDispatcher.isSupported()) {
+            log.warn("Virtual threads need Java 21 or later, listener {} runs on the client thread", getListenerName(method));
+            virtualThreads = false;
+        }
+        // throttled messages run on a worker or virtual thread, failures reach the retrying filter from there
+        boolean throttled = methodAnnotation.maxRate() > 0 || methodAnnotation.maxConcurrency() > 0;
+        if (throttled) {
+            // on worker threads a rate limited listener keeps running one message at a time
+            int maxConcurrency = methodAnnotation.maxConcurrency() == 0 && !virtualThreads ? 1 : methodAnnotation.maxConcurrency();
+            messageConsumer = new ThrottlingFilter(
+                messageConsumer,
+                methodAnnotation.maxRate() > 0 ? new RateLimiter(methodAnnotation.maxRate()) : null,
+                maxConcurrency > 0 ? new AdaptiveConcurrencyLimiter(maxConcurrency) : null,
+                virtualThreads ? getVirtualThreadDispatcher().getExecutor() : getWorkerExecutor(),
+                getScheduler(),
+                THROTTLED_MESSAGE_CAPACITY);
+        }
+        messageConsumer = createRetryingFilter(method, client, messageConsumer);
+        if (methodAnnotation.conflate()) {
+            messageConsumer = new ConflatingFilter(
+                messageConsumer,
+                methodAnnotation.conflateBy().isEmpty() ? (topic, message) -> topic : createTopicParameterExtractor(methodAnnotation.conflateBy(), topicDefinition, topicFormat),
+                getWorkerExecutor());
+        }
+        if (method.isAnnotationPresent(Deduplicate.class)) {
+            Deduplicate deduplicate = method.getAnnotation(Deduplicate.class);
+            messageConsumer = new DeduplicationFilter(
+                messageConsumer,
+                createMessageIdExtractor(deduplicate, topicDefinition, topicFormat),
+                new DeduplicationCache(deduplicate.capacity(), deduplicate.expireAfterMs()));
+        }
+        if (virtualThreads && !throttled) {
+            messageConsumer = getVirtualThreadDispatcher().dispatch(messageConsumer);
+        }
+        if (methodAnnotation.priority() != Priority.NONE) {
+            messageConsumer = getPriorityDispatcher().dispatch(methodAnnotation.priority(), messageConsumer);
+        }
+        subscribe(client, subscribedTopic, messageConsumer);
+    }
+
+    public void processBatchListenerMethod(Object handler, MessageClient client, Method method, BatchListener methodAnnotation, String baseTopic) {
         TopicFormat topicFormat = client.topicFormat();
 
         String subTopic = methodAnnotation.value();
         List<ParameterDescriptor> parameters = new ArrayList<>();
         for (Parameter parameter : method.getParameters()) {
-            parameters.add(analyzeParameterType(parameter));
+            parameters.add(analyzeBatchParameterType(parameter));
         }
         String topicDefinition = baseTopic + topicFormat.getLevelSeparator() + subTopic;
         String subscribedTopic = TopicParser.changeSubscriptionFormatForMessageBrokers(topicDefinition, "" + topicFormat.getWildcard());
-        client.subscribe(subscribedTopic, (topic, message) -> subscriptionLambda(handler, method, parameters, topicDefinition, topic, topicFormat, message));
+        // batches are delivered through acceptBatch, the filter has no message delegate
+        RetryingFilter retryingFilter = createRetryingFilter(method, client, null);
+        BatchAccumulator batchAccumulator = new BatchAccumulator(
+            methodAnnotation.maxSize(),
+            methodAnnotation.maxWaitMs(),
+            getScheduler(),
+            getWorkerExecutor(),
+            batch -> batchSubscriptionLambda(handler, method, parameters, topicDefinition, topicFormat, retryingFilter, batch));
+        batchAccumulators.add(batchAccumulator);
+        subscribe(client, subscribedTopic, batchAccumulator::add);
+    }
+
+    public void processWindowedListenerMethod(Object handler, MessageClient client, Method method, WindowedListener methodAnnotation, String baseTopic) {
+        if (method.getParameterCount() != 1 || method.getParameterTypes()[0] != WindowAggregate.class) {
+            throw new IllegalArgumentException("Windowed listener must take a single WindowAggregate parameter: " + method);
+        }
+        TopicFormat topicFormat = client.topicFormat();
+
+        String topicDefinition = baseTopic + topicFormat.getLevelSeparator() + methodAnnotation.value();
+        String subscribedTopic = TopicParser.changeSubscriptionFormatForMessageBrokers(topicDefinition, "" + topicFormat.getWildcard());
+        long windowMs = parseDurationMs(methodAnnotation.window());
+        long now = System.currentTimeMillis();
+        WindowAggregator windowAggregator = new WindowAggregator(
+            windowMs,
+            methodAnnotation.slide().isEmpty() ? windowMs : parseDurationMs(methodAnnotation.slide()),
+            methodAnnotation.key().isEmpty() ? (topic, message) -> "" : createTopicParameterExtractor(methodAnnotation.key(), topicDefinition, topicFormat),
+            getWorkerExecutor(),
+            windows -> windows.forEach(window -> windowSubscriptionLambda(handler, method, subscribedTopic, window)),
+            now);
+        windowAggregator.start(getScheduler(), now);
+        windowAggregators.add(windowAggregator);
+        subscribe(client, subscribedTopic, windowAggregator::add);
+    }
+
+    private long parseDurationMs(String duration) {
+        Matcher matcher = DURATION_PATTERN.matcher(duration.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid duration: " + duration);
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2) == null ? "ms" : matcher.group(2)) {
+            case "s":
+                return TimeUnit.SECONDS.toMillis(amount);
+            case "m":
+                return TimeUnit.MINUTES.toMillis(amount);
+            case "h":
+                return TimeUnit.HOURS.toMillis(amount);
+            default:
+                return amount;
+        }
+    }
+
+    /**
+     * Collects the subscriptions of the listeners processed from now on instead of subscribing
+     * them one by one, until {@link #flushSubscriptions()} is called.
+     */
+    public synchronized void deferSubscriptions() {
+        if (deferredSubscriptions == null) {
+            deferredSubscriptions = new DeferredSubscriptions();
+        }
+    }
+
+    public CompletableFuture<Void> flushSubscriptions() {
+        DeferredSubscriptions subscriptions;
+        synchronized (this) {
+            subscriptions = deferredSubscriptions;
+        }
+        return subscriptions != null ? subscriptions.flush() : CompletableFuture.completedFuture(null);
+    }
+
+    private void subscribe(MessageClient client, String topic, BiConsumer<String, byte[]> messageConsumer) {
+        DeferredSubscriptions subscriptions;
+        synchronized (this) {
+            subscriptions = deferredSubscriptions;
+        }
+        if (subscriptions == null || !subscriptions.add(client, topic, messageConsumer)) {
+            client.subscribe(topic, messageConsumer);
+        }
+    }
+
+    private RetryingFilter createRetryingFilter(Method method, MessageClient client, BiConsumer<String, byte[]> messageConsumer) {
+        ListenerFailures failures = listenerFailures.computeIfAbsent(getListenerName(method), name -> new ListenerFailures());
+        Retry retry = method.getAnnotation(Retry.class);
+        if (retry == null) {
+            return new RetryingFilter(messageConsumer, RetryPolicy.NONE, null, null, null, failures);
+        }
+        DeadLetterHandler deadLetterHandler = null;
+        if (!retry.deadLetterTopic().isEmpty()) {
+            deadLetterHandler = new TopicDeadLetterHandler(client, retry.deadLetterTopic());
+        } else if (!retry.deadLetterSpool().isEmpty()) {
+            deadLetterHandler = new SpoolDeadLetterHandler(Paths.get(retry.deadLetterSpool()));
+        }
+        return new RetryingFilter(
+            messageConsumer,
+            new RetryPolicy(retry.maxAttempts(), retry.delayMs(), retry.multiplier(), retry.maxDelayMs()),
+            getScheduler(),
+            getWorkerExecutor(),
+            deadLetterHandler,
+            failures);
+    }
+
+    private String getListenerName(Method method) {
+        return method.getDeclaringClass().getName() + "#" + method.getName();
+    }
+
+    private BiFunction<String, byte[], String> createMessageIdExtractor(Deduplicate deduplicate, String topicDefinition, TopicFormat topicFormat) {
+        if (!deduplicate.topicParameter().isEmpty()) {
+            return createTopicParameterExtractor(deduplicate.topicParameter(), topicDefinition, topicFormat);
+        } else if (!deduplicate.payloadField().isEmpty()) {
+            return (topic, message) -> readPayloadField(message, deduplicate.payloadField());
+        }
+        throw new IllegalArgumentException("Deduplication of " + topicDefinition + " needs a topic parameter or a payload field");
+    }
+
+    private BiFunction<String, byte[], String> createTopicParameterExtractor(String topicParameter, String topicDefinition, TopicFormat topicFormat) {
+        return (topic, message) -> TopicParser.parseVariables(
+            topic,
+            topicDefinition,
+            "" + topicFormat.getLevelSeparator(),
+            "" + topicFormat.getJoker()).get(topicParameter);
+    }
+
+    private String readPayloadField(byte[] content, String fieldName) {
+        // streams the top level object until the field is found, the payload is not bound
+        try (JsonParser parser = objectMapper.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String currentName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if (fieldName.equals(currentName)) {
+                    return valueToken != null && valueToken.isScalarValue() ? parser.getValueAsString() : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            log.error("Cannot read message id field {}", fieldName, e);
+        }
+        return null;
+    }
+
+    public void shutdown() {
+        batchAccumulators.forEach(BatchAccumulator::flush);
+        windowAggregators.forEach(windowAggregator -> {
+            windowAggregator.stop();
+            windowAggregator.tick();
+        });
+        synchronized (this) {
+            if (scheduler != null) {
+                scheduler.shutdown();
+            }
+            if (priorityDispatcher != null) {
+                priorityDispatcher.shutdown();
+            }
+            if (workerExecutor != null) {
+                workerExecutor.shutdown();
+            }
+            if (virtualThreadDispatcher != null) {
+                virtualThreadDispatcher.shutdown();
+            }
+        }
+    }
+
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("messaging-scheduler-");
+            threadFactory.setDaemon(true);
+            scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        }
+        return scheduler;
+    }
+
+    private synchronized ExecutorService getWorkerExecutor() {
+        if (workerExecutor == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("messaging-worker-");
+            threadFactory.setDaemon(true);
+            workerExecutor = Executors.newCachedThreadPool(threadFactory);
+        }
+        return workerExecutor;
+    }
+
+    private synchronized PriorityDispatcher getPriorityDispatcher() {
+        if (priorityDispatcher == null) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("messaging-dispatcher-");
+            threadFactory.setDaemon(true);
+            priorityDispatcher = new PriorityDispatcher(threadFactory, dispatcherThreads, dispatchLaneCapacity);
+        }
+        return priorityDispatcher;
+    }
+
+    private synchronized VirtualThreadDispatcher getVirtualThreadDispatcher() {
+        if (virtualThreadDispatcher == null) {
+            virtualThreadDispatcher = VirtualThreadDispatcher.create("messaging-virtual-");
+        }
+        return virtualThreadDispatcher;
+    }
+
+    private ParameterDescriptor analyzeBatchParameterType(Parameter parameter) {
+        Type elementType = getListElementType(parameter);
+        if (parameter.isAnnotationPresent(MessageBody.class)) {
+            if (elementType == null) {
+                throw new IllegalArgumentException("Batch listener message body must be declared as List: " + parameter);
+            }
+            return analyzeBodyType(ResolvableType.forType(elementType).resolve(Object.class), elementType);
+        } else if (parameter.getAnnotations().length == 0 && elementType == MessageContext.class) {
+            return ParameterDescriptor.context();
+        }
+        return ParameterDescriptor.empty();
+    }
+
+    private Type getListElementType(Parameter parameter) {
+        if (parameter.getType() == List.class && parameter.getParameterizedType() instanceof ParameterizedType) {
+            return ((ParameterizedType) parameter.getParameterizedType()).getActualTypeArguments()[0];
+        }
+        return null;
     }
 
     private ParameterDescriptor analyzeParameterType(Parameter parameter) {
@@ -49,11 +417,10 @@ public class MessageCallbackPreProcessor {
             if (parameter.isAnnotationPresent(MessageBody.class)) {
                 // message body
                 //https://stackoverflow.com/questions/6846244/jackson-and-generic-type-reference
-                if (hasSupportedPrimitiveType(parameter.getType())) {
-                    parameterDescriptor = new ParameterDescriptor(ParameterDescriptor.PARAMETER_NAME_BODY, parameter.getType());
-                } else {
-                    parameterDescriptor = new ParameterDescriptor(ParameterDescriptor.PARAMETER_NAME_BODY, parameter.getParameterizedType());
+                if (parameter.getAnnotation(MessageBody.class).lazy()) {
+                    return analyzeLazyBodyType(parameter);
                 }
+                parameterDescriptor = analyzeBodyType(parameter.getType(), parameter.getParameterizedType());
             }
         } else if (parameter.getType() == MessageContext.class) {
             // parameter without annotation can only be the context
@@ -65,6 +432,32 @@ public class MessageCallbackPreProcessor {
         return parameterDescriptor;
     }
 
+    private ParameterDescriptor analyzeBodyType(Class clazz, Type type) {
+        if (hasSupportedPrimitiveType(clazz) || hasStreamingType(clazz)) {
+            return new ParameterDescriptor(ParameterDescriptor.PARAMETER_NAME_BODY, clazz);
+        } else {
+            return new ParameterDescriptor(ParameterDescriptor.PARAMETER_NAME_BODY, type);
+        }
+    }
+
+    private ParameterDescriptor analyzeLazyBodyType(Parameter parameter) {
+        if (parameter.getType() != Supplier.class) {
+            throw new IllegalArgumentException("Lazy message body must be declared as Supplier: " + parameter);
+        }
+        Type valueType = byte[].class;
+        if (parameter.getParameterizedType() instanceof ParameterizedType) {
+            valueType = ((ParameterizedType) parameter.getParameterizedType()).getActualTypeArguments()[0];
+        }
+        Class valueClass = ResolvableType.forType(valueType).resolve(Object.class);
+        return analyzeBodyType(valueClass, valueType).asLazy();
+    }
+
+    private boolean hasStreamingType(Class clazz) {
+        return clazz == ByteBuffer.class ||
+            clazz == InputStream.class ||
+            clazz == JsonParser.class;
+    }
+
     private boolean hasSupportedPrimitiveType(Class clazz) {
         return clazz == String.class ||
             clazz == byte[].class ||
@@ -79,29 +472,32 @@ public class MessageCallbackPreProcessor {
     }
 
     private void subscriptionLambda(Object handler,
+                                    MessageClient client,
                                     Method method,
-                                    List<ParameterDescriptor> parameterDescriptors,
+                                    ListenerParameters listenerParameters,
                                     String subscribedTopic,
                                     String topic,
                                     TopicFormat topicFormat,
-                                    byte[] content) {
+                                    BoundedCache<String, Map<String, String>> topicVariables,
+                                    byte[] content,
+                                    ListenerLatencies latencies) {
+        MessageTrace messageTrace = MessageTrace.current();
+        ReplyContext replyContext = ReplyContext.current();
+        long dispatchStart = messageTrace == null ? 0 : System.nanoTime();
+        Object[] parameters = listenerParameters.acquireArguments();
         try {
-            Object[] parameters = new Object[parameterDescriptors.size()];
-            Map<String, String> parsedVariables = TopicParser.parseVariables(
-                topic,
-                subscribedTopic,
-                "" + topicFormat.getLevelSeparator(),
-                "" + topicFormat.getJoker());
+            // only the artifacts declared by the listener are built
+            Map<String, String> parsedVariables = listenerParameters.isTopicVariablesNeeded()
+                ? parseTopicVariables(topic, subscribedTopic, topicFormat, topicVariables)
+                : null;
             int parameterCount = 0;
-            MessageContext messageContext = new MessageContext();
-            messageContext.setParameterMap(parsedVariables);
-            messageContext.setTopic(topic);
-            messageContext.setSubscribedTopic(subscribedTopic);
-            for (ParameterDescriptor parameterDescriptor : parameterDescriptors) {
+            for (ParameterDescriptor parameterDescriptor : listenerParameters.getDescriptors()) {
                 if (parameterDescriptor.isEmpty()) {
                     parameters[parameterCount] = null;
                 } else if (parameterDescriptor.isContext()) {
-                    parameters[parameterCount] = messageContext;
+                    parameters[parameterCount] = parsedVariables != null
+                        ? new MessageContext(topic, subscribedTopic, () -> parsedVariables)
+                        : new MessageContext(topic, subscribedTopic, () -> parseTopicVariables(topic, subscribedTopic, topicFormat, topicVariables));
                 } else if (parameterDescriptor.isBody()) {
                     parameters[parameterCount] = parseBody(content, parameterDescriptor);
                 } else { // topic parameter
@@ -111,43 +507,197 @@ public class MessageCallbackPreProcessor {
                 parameterCount++;
             }
             // https://stackoverflow.com/questions/16207283/how-to-pass-multiple-parameters-to-a-method-in-java-reflections/16254447
+            Object reply = method.invoke(handler, parameters);
+            if (reply != null && replyContext != null && replyContext.getReplyTopic() != null) {
+                publishReply(client, replyContext, reply);
+            }
+        } catch (IllegalAccessException e) {
+            throw new ListenerException("Cannot call listener method for topic " + subscribedTopic, e, false);
+        } catch (InvocationTargetException e) {
+            throw new ListenerException("Listener method failed for topic " + subscribedTopic, e.getCause(), true);
+        } finally {
+            listenerParameters.releaseArguments(parameters);
+            if (messageTrace != null) {
+                latencies.getBrokerTransit().recordMillis(messageTrace.getArrivalTimestamp() - messageTrace.getPublishTimestamp());
+                latencies.getQueueing().recordNanos(dispatchStart - messageTrace.getArrivalNanos());
+                latencies.getHandler().recordNanos(System.nanoTime() - dispatchStart);
+            }
+        }
+    }
+
+    private Map<String, String> parseTopicVariables(String topic,
+                                                    String subscribedTopic,
+                                                    TopicFormat topicFormat,
+                                                    BoundedCache<String, Map<String, String>> topicVariables) {
+        // incoming topics repeat, their variables are parsed once per listener
+        return topicVariables.computeIfAbsent(topic, incomingTopic -> Collections.unmodifiableMap(TopicParser.parseVariables(
+            incomingTopic,
+            subscribedTopic,
+            "" + topicFormat.getLevelSeparator(),
+            "" + topicFormat.getJoker())));
+    }
+
+    private void publishReply(MessageClient client, ReplyContext replyContext, Object reply) {
+        byte[] payload;
+        if (reply instanceof byte[]) {
+            payload = (byte[]) reply;
+        } else if (reply instanceof String) {
+            payload = ((String) reply).getBytes(StandardCharsets.UTF_8);
+        } else {
+            try {
+                payload = objectMapper.writeValueAsBytes(reply);
+            } catch (JsonProcessingException e) {
+                log.error("Cannot serialize reply to {}", replyContext.getReplyTopic(), e);
+                return;
+            }
+        }
+        client.publish(replyContext.getReplyTopic(), MessageEnvelope.wrapReply(payload, replyContext.getCorrelationId()));
+    }
+
+    private void batchSubscriptionLambda(Object handler,
+                                         Method method,
+                                         List<ParameterDescriptor> parameterDescriptors,
+                                         String subscribedTopic,
+                                         TopicFormat topicFormat,
+                                         RetryingFilter retryingFilter,
+                                         List<BatchAccumulator.BatchItem> batch) {
+        // an unreadable message goes to the dead letter handler alone, the rest of the batch is delivered
+        List<BatchAccumulator.BatchItem> readableItems = new ArrayList<>(batch.size());
+        List<Object[]> itemBodies = new ArrayList<>(batch.size());
+        for (BatchAccumulator.BatchItem item : batch) {
+            Object[] bodies = new Object[parameterDescriptors.size()];
+            try {
+                for (int index = 0; index < parameterDescriptors.size(); index++) {
+                    if (parameterDescriptors.get(index).isBody()) {
+                        bodies[index] = parseBody(item.getContent(), parameterDescriptors.get(index));
+                    }
+                }
+            } catch (ListenerException e) {
+                retryingFilter.reject(item.getTopic(), item.getContent(), e);
+                continue;
+            }
+            readableItems.add(item);
+            itemBodies.add(bodies);
+        }
+        if (readableItems.isEmpty()) {
+            return;
+        }
+        retryingFilter.acceptBatch(
+            subscribedTopic,
+            () -> invokeBatchListener(handler, method, parameterDescriptors, subscribedTopic, topicFormat, readableItems, itemBodies),
+            cause -> readableItems.forEach(item -> retryingFilter.deadLetter(item.getTopic(), item.getContent(), cause)));
+    }
+
+    private void invokeBatchListener(Object handler,
+                                     Method method,
+                                     List<ParameterDescriptor> parameterDescriptors,
+                                     String subscribedTopic,
+                                     TopicFormat topicFormat,
+                                     List<BatchAccumulator.BatchItem> batch,
+                                     List<Object[]> itemBodies) {
+        Object[] parameters = new Object[parameterDescriptors.size()];
+        int parameterCount = 0;
+        for (ParameterDescriptor parameterDescriptor : parameterDescriptors) {
+            if (parameterDescriptor.isContext()) {
+                List<MessageContext> messageContexts = new ArrayList<>(batch.size());
+                for (BatchAccumulator.BatchItem item : batch) {
+                    messageContexts.add(new MessageContext(item.getTopic(), subscribedTopic, () -> TopicParser.parseVariables(
+                        item.getTopic(),
+                        subscribedTopic,
+                        "" + topicFormat.getLevelSeparator(),
+                        "" + topicFormat.getJoker())));
+                }
+                parameters[parameterCount] = messageContexts;
+            } else if (parameterDescriptor.isBody()) {
+                List<Object> bodies = new ArrayList<>(batch.size());
+                for (Object[] bodiesOfItem : itemBodies) {
+                    bodies.add(bodiesOfItem[parameterCount]);
+                }
+                parameters[parameterCount] = bodies;
+            }
+
+            parameterCount++;
+        }
+        try {
             method.invoke(handler, parameters);
+        } catch (IllegalAccessException e) {
+            throw new ListenerException("Cannot call batch listener method for topic " + subscribedTopic, e, false);
+        } catch (InvocationTargetException e) {
+            throw new ListenerException("Batch listener method failed for topic " + subscribedTopic, e.getCause(), true);
+        }
+    }
+
+    private void windowSubscriptionLambda(Object handler, Method method, String subscribedTopic, WindowAggregate window) {
+        try {
+            method.invoke(handler, window);
         } catch (IllegalAccessException | InvocationTargetException e) {
-            log.error("Cannot call listener method for topic {}", subscribedTopic, e);
+            log.error("Cannot call windowed listener method for topic {}", subscribedTopic, e);
         }
     }
 
     private Object parseTopicParameter(Map<String, String> parsedVariables, ParameterDescriptor parameterDescriptor) {
         Object obj = null;
         String parameterValue = parsedVariables.get(parameterDescriptor.getName());
-        if (hasSupportedPrimitiveType(parameterDescriptor.getClazz())) {
-            obj = parsePrimitiveTypes(parameterDescriptor, parameterValue.getBytes());
+        if (parameterDescriptor.getClazz() == byte[].class) {
+            obj = parameterValue.getBytes();
+        } else if (hasSupportedPrimitiveType(parameterDescriptor.getClazz())) {
+            obj = parsePrimitiveTypes(parameterDescriptor, parameterValue);
         }
         return obj;
     }
 
     private Object parseBody(byte[] content, ParameterDescriptor parameterDescriptor) {
+        if (parameterDescriptor.isLazy()) {
+            return new LazyBody<>(() -> decodeBody(content, parameterDescriptor));
+        }
+        return decodeBody(content, parameterDescriptor);
+    }
+
+    private Object decodeBody(byte[] content, ParameterDescriptor parameterDescriptor) {
         Object obj = null;
         if (hasSupportedPrimitiveType(parameterDescriptor.getClazz())) {
             obj = parsePrimitiveTypes(parameterDescriptor, content);
+        } else if (hasStreamingType(parameterDescriptor.getClazz())) {
+            obj = parseStreamingTypes(parameterDescriptor, content);
         } else {
             try {
                 JavaType javaType = objectMapper.getTypeFactory().constructType(parameterDescriptor.getType());
                 obj = objectMapper.readValue(content, javaType);
             } catch (IOException e) {
-                log.error("Cannot read message", e);
+                throw new ListenerException("Cannot read message", e, false);
+            }
+        }
+        return obj;
+    }
+
+    private Object parseStreamingTypes(ParameterDescriptor parameterDescriptor, byte[] content) {
+        // the payload array is shared by every listener of the topic, so it is only wrapped and never copied
+        Object obj = null;
+        if (parameterDescriptor.getClazz() == ByteBuffer.class) {
+            obj = ByteBuffer.wrap(content).asReadOnlyBuffer();
+        } else if (parameterDescriptor.getClazz() == InputStream.class) {
+            obj = new ByteArrayInputStream(content);
+        } else if (parameterDescriptor.getClazz() == JsonParser.class) {
+            try {
+                obj = objectMapper.getFactory().createParser(content);
+            } catch (IOException e) {
+                throw new ListenerException("Cannot create JSON parser for message", e, false);
             }
         }
         return obj;
     }
 
     private Object parsePrimitiveTypes(ParameterDescriptor parameterDescriptor, byte[] content) {
-        String stringContent = new String(content);
+        if (parameterDescriptor.getClazz() == byte[].class) {
+            return content;
+        }
+        return parsePrimitiveTypes(parameterDescriptor, new String(content));
+    }
+
+    private Object parsePrimitiveTypes(ParameterDescriptor parameterDescriptor, String stringContent) {
         Object obj = null;
         if (parameterDescriptor.getClazz() == String.class) {
             obj = stringContent;
-        } else if (parameterDescriptor.getClazz() == byte[].class) {
-            obj = content;
         } else if (parameterDescriptor.getClazz() == Integer.class) {
             obj = parseInteger(stringContent, null);
         } else if (parameterDescriptor.getClazz() == int.class) {
@@ -20,6 +20,8 @@ public class ParameterDescriptor {
 
     private Type type;
 
+    private boolean lazy;
+
     public ParameterDescriptor(String name, Class clazz) {
         this.name = name;
         this.clazz = clazz;
@@ -30,6 +32,11 @@ public class ParameterDescriptor {
         this.type = type;
     }
 
+    public ParameterDescriptor asLazy() {
+        this.lazy = true;
+        return this;
+    }
+
     public static ParameterDescriptor empty() {
         return new ParameterDescriptor(PARAMETER_NAME_EMPTY, null);
     }
@@ -0,0 +1,209 @@
+package com.celadonsea.messagingframework.scanner;
+
+import com.celadonsea.messagingframework.core.LogThrottle;
+import com.celadonsea.messagingframework.message.WindowAggregate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Aggregates numeric messages in panes as long as the slide of the window, a window is the merge
+ * of its last panes. Every key holds its panes in primitive arrays, keys without messages in the
+ * whole window are dropped.
+ */
+@Slf4j
+class WindowAggregator {
+
+    private final long paneMs;
+
+    private final int paneCount;
+
+    private final BiFunction<String, byte[], String> keyExtractor;
+
+    private final Executor executor;
+
+    private final Consumer<List<WindowAggregate>> windowConsumer;
+
+    private final Map<String, KeyPanes> keyPanes = new HashMap<>();
+
+    private final Queue<List<WindowAggregate>> pendingWindows = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingDeliveries = new AtomicInteger();
+
+    private final LogThrottle invalidMessageLog = new LogThrottle(10, TimeUnit.SECONDS);
+
+    private long paneStart;
+
+    private int currentPane;
+
+    private ScheduledFuture<?> scheduledTick;
+
+    WindowAggregator(long windowMs,
+                     long slideMs,
+                     BiFunction<String, byte[], String> keyExtractor,
+                     Executor executor,
+                     Consumer<List<WindowAggregate>> windowConsumer,
+                     long now) {
+        if (slideMs <= 0 || windowMs < slideMs || windowMs % slideMs != 0) {
+            throw new IllegalArgumentException("Window must be a positive multiple of the slide: " + windowMs + ", " + slideMs);
+        }
+        this.paneMs = slideMs;
+        this.paneCount = (int) (windowMs / slideMs);
+        this.keyExtractor = keyExtractor;
+        this.executor = executor;
+        this.windowConsumer = windowConsumer;
+        this.paneStart = now - now % paneMs;
+    }
+
+    synchronized void start(ScheduledExecutorService scheduler, long now) {
+        scheduledTick = scheduler.scheduleAtFixedRate(this::tick, paneStart + paneMs - now, paneMs, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stop() {
+        if (scheduledTick != null) {
+            scheduledTick.cancel(false);
+            scheduledTick = null;
+        }
+    }
+
+    void add(String topic, byte[] content) {
+        double value;
+        try {
+            value = Double.parseDouble(new String(content, StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException e) {
+            long suppressed = invalidMessageLog.tryAcquire();
+            if (suppressed >= 0) {
+                log.warn("Cannot aggregate non numeric message on topic {} ({} more since the last warning)", topic, suppressed);
+            }
+            return;
+        }
+        String key = keyExtractor.apply(topic, content);
+        synchronized (this) {
+            keyPanes.computeIfAbsent(key == null ? "" : key, k -> new KeyPanes(paneCount)).add(currentPane, value);
+        }
+    }
+
+    /**
+     * Closes the current pane and delivers the windows ending with it.
+     */
+    void tick() {
+        List<WindowAggregate> windows = new ArrayList<>();
+        synchronized (this) {
+            long windowEnd = paneStart + paneMs;
+            long windowStart = windowEnd - paneCount * paneMs;
+            currentPane = (currentPane + 1) % paneCount;
+            paneStart = windowEnd;
+            Iterator<Map.Entry<String, KeyPanes>> iterator = keyPanes.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, KeyPanes> entry = iterator.next();
+                KeyPanes panes = entry.getValue();
+                windows.add(panes.aggregate(entry.getKey(), windowStart, windowEnd));
+                panes.reset(currentPane);
+                if (panes.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        windows.removeIf(window -> window.getCount() == 0);
+        if (!windows.isEmpty()) {
+            pendingWindows.add(windows);
+            // a single delivery task runs at a time, so windows are delivered in order even if a handler is slower than the slide
+            if (pendingDeliveries.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this::deliver);
+                } catch (RejectedExecutionException e) {
+                    pendingDeliveries.set(0);
+                    log.error("Cannot deliver windows, the executor is shut down", e);
+                }
+            }
+        }
+    }
+
+    private void deliver() {
+        int missed = 1;
+        do {
+            List<WindowAggregate> windows;
+            while ((windows = pendingWindows.poll()) != null) {
+                try {
+                    windowConsumer.accept(windows);
+                } catch (RuntimeException e) {
+                    log.error("Cannot deliver windows", e);
+                }
+            }
+            missed = pendingDeliveries.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private static class KeyPanes {
+
+        private final long[] count;
+
+        private final double[] sum;
+
+        private final double[] min;
+
+        private final double[] max;
+
+        KeyPanes(int paneCount) {
+            count = new long[paneCount];
+            sum = new double[paneCount];
+            min = new double[paneCount];
+            max = new double[paneCount];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        void add(int pane, double value) {
+            count[pane]++;
+            sum[pane] += value;
+            min[pane] = Math.min(min[pane], value);
+            max[pane] = Math.max(max[pane], value);
+        }
+
+        WindowAggregate aggregate(String key, long windowStart, long windowEnd) {
+            long windowCount = 0;
+            double windowSum = 0;
+            double windowMin = Double.POSITIVE_INFINITY;
+            double windowMax = Double.NEGATIVE_INFINITY;
+            for (int pane = 0; pane < count.length; pane++) {
+                windowCount += count[pane];
+                windowSum += sum[pane];
+                windowMin = Math.min(windowMin, min[pane]);
+                windowMax = Math.max(windowMax, max[pane]);
+            }
+            return new WindowAggregate(key, windowStart, windowEnd, windowCount, windowSum, windowMin, windowMax);
+        }
+
+        void reset(int pane) {
+            count[pane] = 0;
+            sum[pane] = 0;
+            min[pane] = Double.POSITIVE_INFINITY;
+            max[pane] = Double.NEGATIVE_INFINITY;
+        }
+
+        boolean isEmpty() {
+            for (long paneCount : count) {
+                if (paneCount > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
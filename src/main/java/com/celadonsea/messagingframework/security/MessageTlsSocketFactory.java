@@ -1,5 +1,6 @@
 package com.celadonsea.messagingframework.security;
 
+import com.celadonsea.messagingframework.config.SocketOptions;
 import com.celadonsea.messagingframework.core.ConnectionException;
 
 import javax.net.ssl.KeyManagerFactory;
@@ -20,7 +21,14 @@ public class MessageTlsSocketFactory extends SSLSocketFactory {
 
 	private final SSLSocketFactory sslSocketFactory;
 
+	private final SocketOptions socketOptions;
+
 	public MessageTlsSocketFactory(KeyStore keyStore, String keyPassword) {
+		this(keyStore, keyPassword, SocketOptions.DEFAULT);
+	}
+
+	public MessageTlsSocketFactory(KeyStore keyStore, String keyPassword, SocketOptions socketOptions) {
+		this.socketOptions = socketOptions;
 		try {
 			SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
 			KeyManagerFactory managerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
@@ -45,27 +53,28 @@ public class MessageTlsSocketFactory extends SSLSocketFactory {
 
 	@Override
 	public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
-		return socketWithTls12(sslSocketFactory.createSocket(socket, host, port, autoClose));
+		// Paho layers TLS over the socket it has connected, the options go to that socket
+		return socketWithTls12(sslSocketFactory.createSocket(socketOptions.apply(socket), host, port, autoClose));
 	}
 
 	@Override
 	public Socket createSocket(String host, int port) throws IOException {
-		return socketWithTls12(sslSocketFactory.createSocket(host, port));
+		return socketWithTls12(socketOptions.apply(sslSocketFactory.createSocket(host, port)));
 	}
 
 	@Override
 	public Socket createSocket(String host, int port, InetAddress localAddress, int localPort) throws IOException {
-		return socketWithTls12(sslSocketFactory.createSocket(host, port, localAddress, localPort));
+		return socketWithTls12(socketOptions.apply(sslSocketFactory.createSocket(host, port, localAddress, localPort)));
 	}
 
 	@Override
 	public Socket createSocket(InetAddress host, int port) throws IOException {
-		return socketWithTls12(sslSocketFactory.createSocket(host, port));
+		return socketWithTls12(socketOptions.apply(sslSocketFactory.createSocket(host, port)));
 	}
 
 	@Override
 	public Socket createSocket(InetAddress host, int port, InetAddress localAddress, int localPort) throws IOException {
-		return socketWithTls12(sslSocketFactory.createSocket(host, port, localAddress, localPort));
+		return socketWithTls12(socketOptions.apply(sslSocketFactory.createSocket(host, port, localAddress, localPort)));
 	}
 
 	private Socket socketWithTls12(Socket socket) {
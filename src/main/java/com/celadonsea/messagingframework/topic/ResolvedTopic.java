@@ -0,0 +1,21 @@
+package com.celadonsea.messagingframework.topic;
+
+import lombok.Getter;
+
+/**
+ * Topic generated from a template. Instances are shared by the {@link TopicCache}.
+ */
+@Getter
+public class ResolvedTopic {
+
+    private final String topic;
+
+    public ResolvedTopic(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public String toString() {
+        return topic;
+    }
+}
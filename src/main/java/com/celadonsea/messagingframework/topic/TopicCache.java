@@ -0,0 +1,123 @@
+package com.celadonsea.messagingframework.topic;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the topics generated from a template and variable values, so publishing to a
+ * recurring topic does not regenerate it. The cache is split into segments with
+ * their own lock and LRU order to keep the publishing threads from contending on one lock.
+ */
+public class TopicCache {
+
+    public static final TopicCache NONE = new TopicCache(0);
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    @Getter
+    private final LongAdder hits = new LongAdder();
+
+    @Getter
+    private final LongAdder misses = new LongAdder();
+
+    public TopicCache(int capacity) {
+        int segmentCount = capacity <= 0 ? 0 : Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity));
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(capacity / segmentCount);
+        }
+    }
+
+    public ResolvedTopic resolve(String template, Map<String, String> variables) {
+        if (segments.length == 0) {
+            return new ResolvedTopic(TopicParser.generate(template, variables));
+        }
+        Key key = new Key(template, variables);
+        Segment segment = segments[(key.hash ^ (key.hash >>> 16)) & (segments.length - 1)];
+        ResolvedTopic resolvedTopic;
+        synchronized (segment) {
+            resolvedTopic = segment.get(key);
+        }
+        if (resolvedTopic != null) {
+            hits.increment();
+            return resolvedTopic;
+        }
+        misses.increment();
+        resolvedTopic = new ResolvedTopic(TopicParser.generate(template, variables));
+        // the variables of the publisher are not kept, the cached key gets its own copy
+        Key cachedKey = new Key(template, new HashMap<>(variables), key.hash);
+        synchronized (segment) {
+            segment.put(cachedKey, resolvedTopic);
+        }
+        return resolvedTopic;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private static class Segment extends LinkedHashMap<Key, ResolvedTopic> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ResolvedTopic> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static class Key {
+
+        private final String template;
+
+        private final Map<String, String> variables;
+
+        private final int hash;
+
+        private Key(String template, Map<String, String> variables) {
+            this(template, variables, 31 * template.hashCode() + variables.hashCode());
+        }
+
+        private Key(String template, Map<String, String> variables, int hash) {
+            this.template = template;
+            this.variables = variables;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && template.equals(key.template) && variables.equals(key.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
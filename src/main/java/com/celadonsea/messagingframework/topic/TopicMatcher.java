@@ -0,0 +1,49 @@
+package com.celadonsea.messagingframework.topic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TopicMatcher {
+
+    private TopicMatcher() {}
+
+    public static String[] splitLevels(final String topic, final char levelSeparator) {
+        List<String> levels = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = topic.indexOf(levelSeparator, start)) >= 0) {
+            levels.add(topic.substring(start, end));
+            start = end + 1;
+        }
+        levels.add(topic.substring(start));
+        return levels.toArray(new String[0]);
+    }
+
+    /**
+     * @return true if every topic matched by the other filter is matched by the filter as well
+     */
+    public static boolean covers(final String filter, final String otherFilter, final TopicFormat topicFormat) {
+        String wildcard = String.valueOf(topicFormat.getWildcard());
+        String joker = String.valueOf(topicFormat.getJoker());
+        String[] levels = splitLevels(filter, topicFormat.getLevelSeparator());
+        String[] otherLevels = splitLevels(otherFilter, topicFormat.getLevelSeparator());
+
+        // topics starting with $ are reserved for the broker and not matched by wildcards at the first level
+        if (otherLevels[0].startsWith("$") && (levels[0].equals(joker) || levels[0].equals(wildcard))) {
+            return false;
+        }
+        for (int index = 0; index < levels.length; index++) {
+            if (levels[index].equals(joker)) {
+                // the joker matches the parent level as well
+                return true;
+            }
+            if (index >= otherLevels.length || otherLevels[index].equals(joker)) {
+                return false;
+            }
+            if (!levels[index].equals(wildcard) && !levels[index].equals(otherLevels[index])) {
+                return false;
+            }
+        }
+        return levels.length == otherLevels.length;
+    }
+}
@@ -0,0 +1,149 @@
+package com.celadonsea.messagingframework.topic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Topic definition with {@code {variable}} levels compiled once. Parsing a topic reads the
+ * variable levels by position and generating a topic concatenates the literal parts with the
+ * values, so neither needs the regular expressions of {@link TopicParser}. A multi-level wildcard
+ * at the end of the template is captured as the variable {@code last}, like in
+ * {@link TopicParser#parseVariables(String, String, String, String)}.
+ */
+public class TopicTemplate {
+
+    private static final String LAST_VARIABLE = "last";
+
+    private final String template;
+
+    private final char levelSeparator;
+
+    private final String subscription;
+
+    private final String[] literals;
+
+    private final String[] variables;
+
+    private final int[] variableLevels;
+
+    private final int multiLevelIndex;
+
+    private TopicTemplate(String template, TopicFormat topicFormat) {
+        this.template = template;
+        this.levelSeparator = topicFormat.getLevelSeparator();
+        String[] levels = TopicMatcher.splitLevels(template, levelSeparator);
+        List<String> literalParts = new ArrayList<>();
+        List<String> variableNames = new ArrayList<>();
+        List<Integer> levelIndexes = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        StringBuilder subscriptionBuilder = new StringBuilder();
+        int multiLevel = -1;
+        for (int level = 0; level < levels.length; level++) {
+            if (level > 0) {
+                literal.append(levelSeparator);
+                subscriptionBuilder.append(levelSeparator);
+            }
+            String part = levels[level];
+            if (part.length() > 2 && part.charAt(0) == '{' && part.charAt(part.length() - 1) == '}') {
+                literalParts.add(literal.toString());
+                literal.setLength(0);
+                variableNames.add(part.substring(1, part.length() - 1));
+                levelIndexes.add(level);
+                subscriptionBuilder.append(topicFormat.getWildcard());
+            } else {
+                if (part.equals(String.valueOf(topicFormat.getJoker()))) {
+                    if (level != levels.length - 1) {
+                        throw new IllegalArgumentException("Wildcard " + part + " must be the last level of the topic: " + template);
+                    }
+                    multiLevel = level;
+                }
+                literal.append(part);
+                subscriptionBuilder.append(part);
+            }
+        }
+        literalParts.add(literal.toString());
+        this.literals = literalParts.toArray(new String[0]);
+        this.variables = variableNames.toArray(new String[0]);
+        this.variableLevels = levelIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.multiLevelIndex = multiLevel;
+        this.subscription = subscriptionBuilder.toString();
+    }
+
+    public static TopicTemplate compile(String template, TopicFormat topicFormat) {
+        return new TopicTemplate(template, topicFormat);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * @return the template with its variables replaced by single level wildcards
+     */
+    public String getSubscription() {
+        return subscription;
+    }
+
+    public List<String> getVariables() {
+        List<String> names = new ArrayList<>(variables.length + 1);
+        Collections.addAll(names, variables);
+        if (multiLevelIndex >= 0) {
+            names.add(LAST_VARIABLE);
+        }
+        return names;
+    }
+
+    /**
+     * @param topic a topic matching the subscription of the template
+     * @return the values of the template variables in the topic
+     */
+    public Map<String, String> parse(String topic) {
+        Map<String, String> values = new LinkedHashMap<>();
+        int level = 0;
+        int variable = 0;
+        int levelStart = 0;
+        for (int index = 0; index <= topic.length() && (variable < variables.length || multiLevelIndex >= 0); index++) {
+            if (level == multiLevelIndex) {
+                values.put(LAST_VARIABLE, topic.substring(levelStart));
+                break;
+            }
+            if (index == topic.length() || topic.charAt(index) == levelSeparator) {
+                if (variable < variables.length && variableLevels[variable] == level) {
+                    values.put(variables[variable++], topic.substring(levelStart, index));
+                }
+                level++;
+                levelStart = index + 1;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return the topic of the template with the given variable values, a multi-level wildcard is replaced
+     * by the value of {@code last}, missing variables are left in the topic
+     */
+    public String generate(Map<String, String> values) {
+        String last = multiLevelIndex >= 0 ? values.get(LAST_VARIABLE) : null;
+        if (variables.length == 0 && last == null) {
+            return literals[0];
+        }
+        StringBuilder topic = new StringBuilder(template.length() + 16 * variables.length);
+        for (int variable = 0; variable < variables.length; variable++) {
+            topic.append(literals[variable]);
+            String value = values.get(variables[variable]);
+            if (value == null) {
+                topic.append('{').append(variables[variable]).append('}');
+            } else {
+                topic.append(value);
+            }
+        }
+        String literal = literals[variables.length];
+        if (last == null) {
+            return topic.append(literal).toString();
+        }
+        return topic.append(literal, 0, literal.length() - 1).append(last).toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.celadonsea.messagingframework.topic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of topic filters. Matching an incoming topic visits only the branches whose
+ * levels match, so the cost depends on the topic depth and not on the number of filters.
+ * Adding or removing a filter copies only the nodes on its path and returns a new trie, so a trie can be
+ * read by any number of threads without locking while a newer version is being built.
+ */
+public class TopicTrie<T> {
+
+    private final TopicFormat topicFormat;
+
+    private final String wildcard;
+
+    private final String joker;
+
+    private final Node<T> root;
+
+    public TopicTrie(TopicFormat topicFormat) {
+        this(topicFormat, Node.empty());
+    }
+
+    private TopicTrie(TopicFormat topicFormat, Node<T> root) {
+        this.topicFormat = topicFormat;
+        this.wildcard = String.valueOf(topicFormat.getWildcard());
+        this.joker = String.valueOf(topicFormat.getJoker());
+        this.root = root;
+    }
+
+    public TopicTrie<T> add(String filter, T value) {
+        String[] levels = TopicMatcher.splitLevels(filter, topicFormat.getLevelSeparator());
+        return new TopicTrie<>(topicFormat, add(root, levels, 0, value));
+    }
+
+    private Node<T> add(Node<T> node, String[] levels, int index, T value) {
+        if (index == levels.length) {
+            List<T> values = new ArrayList<>(node.values.size() + 1);
+            values.addAll(node.values);
+            values.add(value);
+            return new Node<>(node.children, Collections.unmodifiableList(values));
+        }
+        Node<T> child = node.children.get(levels[index]);
+        return node.withChild(levels[index], add(child == null ? Node.empty() : child, levels, index + 1, value));
+    }
+
+    public TopicTrie<T> remove(String filter, T value) {
+        String[] levels = TopicMatcher.splitLevels(filter, topicFormat.getLevelSeparator());
+        Node<T> newRoot = remove(root, levels, 0, value);
+        return newRoot == root ? this : new TopicTrie<>(topicFormat, newRoot);
+    }
+
+    private Node<T> remove(Node<T> node, String[] levels, int index, T value) {
+        if (index == levels.length) {
+            int position = node.values.indexOf(value);
+            if (position < 0) {
+                return node;
+            }
+            List<T> values = new ArrayList<>(node.values);
+            values.remove(position);
+            return new Node<>(node.children, Collections.unmodifiableList(values));
+        }
+        Node<T> child = node.children.get(levels[index]);
+        if (child == null) {
+            return node;
+        }
+        Node<T> newChild = remove(child, levels, index + 1, value);
+        if (newChild == child) {
+            return node;
+        }
+        return newChild.isEmpty() ? node.withoutChild(levels[index]) : node.withChild(levels[index], newChild);
+    }
+
+    public List<T> match(String topic) {
+        List<T> result = new ArrayList<>();
+        match(root, TopicMatcher.splitLevels(topic, topicFormat.getLevelSeparator()), 0, result);
+        return result;
+    }
+
+    private void match(Node<T> node, String[] levels, int index, List<T> result) {
+        // topics starting with $ are reserved for the broker and not matched by wildcards at the first level
+        boolean wildcardsAllowed = index > 0 || !levels[0].startsWith("$");
+        Node<T> jokerNode = wildcardsAllowed ? node.children.get(joker) : null;
+        if (jokerNode != null) {
+            result.addAll(jokerNode.values);
+        }
+        if (index == levels.length) {
+            result.addAll(node.values);
+            return;
+        }
+        Node<T> levelNode = node.children.get(levels[index]);
+        if (levelNode != null) {
+            match(levelNode, levels, index + 1, result);
+        }
+        Node<T> wildcardNode = wildcardsAllowed ? node.children.get(wildcard) : null;
+        if (wildcardNode != null) {
+            match(wildcardNode, levels, index + 1, result);
+        }
+    }
+
+    private static class Node<T> {
+
+        private final Map<String, Node<T>> children;
+
+        private final List<T> values;
+
+        private Node(Map<String, Node<T>> children, List<T> values) {
+            this.children = children;
+            this.values = values;
+        }
+
+        private static <T> Node<T> empty() {
+            return new Node<>(Collections.emptyMap(), Collections.emptyList());
+        }
+
+        private boolean isEmpty() {
+            return children.isEmpty() && values.isEmpty();
+        }
+
+        private Node<T> withoutChild(String level) {
+            Map<String, Node<T>> newChildren = new HashMap<>(children);
+            newChildren.remove(level);
+            return new Node<>(Collections.unmodifiableMap(newChildren), values);
+        }
+
+        private Node<T> withChild(String level, Node<T> child) {
+            Map<String, Node<T>> newChildren = new HashMap<>(children);
+            newChildren.put(level, child);
+            return new Node<>(Collections.unmodifiableMap(newChildren), values);
+        }
+    }
+}
@@ -30,7 +30,7 @@ public class MessagingConfiguration implements MessageClientConfig {
     @Bean
     public MessageClient testClient() {
         TestMessageClient testMessageClient = new TestMessageClient(this);
-        testMessageClient.connect();
+        testMessageClient.connectAsync();
         return testMessageClient;
     }
 }
@@ -1,19 +1,37 @@
 package com.celadonsea.messagingframework;
 
+import com.celadonsea.messagingframework.annotation.BatchListener;
+import com.celadonsea.messagingframework.annotation.Deduplicate;
 import com.celadonsea.messagingframework.annotation.Listener;
 import com.celadonsea.messagingframework.annotation.MessageBody;
 import com.celadonsea.messagingframework.annotation.MessagingController;
+import com.celadonsea.messagingframework.annotation.Retry;
 import com.celadonsea.messagingframework.annotation.TopicParameter;
+import com.celadonsea.messagingframework.annotation.WindowedListener;
 import com.celadonsea.messagingframework.message.Message;
 import com.celadonsea.messagingframework.message.MessageContext;
+import com.celadonsea.messagingframework.message.WindowAggregate;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import lombok.Getter;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.Supplier;
+
 @MessagingController(topic = "valami/{valami2}/valami3", client = "testClient")
 public class TestMessagingController {
 
     @Getter
     private String incomingMessage;
 
+    @Getter
+    private int invocationCount;
+
     @Listener("topic1/{var1}")
     public void listenerMethod(@TopicParameter("valami2") String valami2,
                                @TopicParameter("var1") String var1,
@@ -77,4 +95,109 @@ public class TestMessagingController {
 
         incomingMessage = new String(message);
     }
-}
\ No newline at end of file
+
+    @Listener("topic10")
+    public void byteBufferListenerMethod(@MessageBody ByteBuffer message) {
+
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        incomingMessage = new String(bytes);
+    }
+
+    @Listener("topic11")
+    public void inputStreamListenerMethod(@MessageBody InputStream message) throws IOException {
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(message));
+        incomingMessage = reader.readLine();
+    }
+
+    @Listener("topic12")
+    public void jsonParserListenerMethod(@MessageBody JsonParser message) throws IOException {
+
+        StringBuilder fieldNames = new StringBuilder();
+        while (message.nextToken() != null) {
+            if (message.getCurrentToken() == JsonToken.FIELD_NAME) {
+                fieldNames.append(message.getCurrentName());
+            }
+        }
+        incomingMessage = fieldNames.toString();
+    }
+
+    @Listener("topic13/{decode}")
+    public void lazyListenerMethod(@TopicParameter("decode") String decode,
+                                   @MessageBody(lazy = true) Supplier<TestPojo> message) {
+
+        incomingMessage = "true".equals(decode) ? message.get().getB() : "not decoded";
+    }
+
+    @BatchListener(value = "batch/{id}", maxSize = 3, maxWaitMs = 60000)
+    public void batchListenerMethod(@MessageBody List<Message<TestPojo>> messages,
+                                    List<MessageContext> contexts) {
+
+        StringBuilder batch = new StringBuilder();
+        for (int index = 0; index < messages.size(); index++) {
+            batch.append(messages.get(index).getValue().getB())
+                .append("#")
+                .append(contexts.get(index).getParameterMap().get("id"))
+                .append(";");
+        }
+        incomingMessage = batch.toString();
+    }
+
+    @BatchListener(value = "timedbatch", maxSize = 100, maxWaitMs = 50)
+    public void timedBatchListenerMethod(@MessageBody List<Integer> messages) {
+
+        incomingMessage = String.valueOf(messages);
+    }
+
+    @Listener("topic14/{messageId}")
+    @Deduplicate(topicParameter = "messageId")
+    public void topicDeduplicatedListenerMethod(@MessageBody String message) {
+
+        invocationCount++;
+        incomingMessage = message;
+    }
+
+    @Listener("topic15")
+    @Deduplicate(payloadField = "id")
+    public void payloadDeduplicatedListenerMethod(@MessageBody String message) {
+
+        invocationCount++;
+        incomingMessage = message;
+    }
+
+    @Listener("topic16")
+    @Retry(maxAttempts = 3, delayMs = 10, deadLetterTopic = "dlq")
+    public void failingListenerMethod(@MessageBody String message) {
+
+        invocationCount++;
+        if (message.startsWith("fail")) {
+            throw new IllegalStateException("Cannot handle " + message);
+        }
+        incomingMessage = message;
+    }
+
+    @BatchListener(value = "failingbatch", maxSize = 3, maxWaitMs = 60000)
+    @Retry(maxAttempts = 2, delayMs = 10, deadLetterTopic = "dlq")
+    public void failingBatchListenerMethod(@MessageBody List<TestPojo> messages) {
+
+        invocationCount++;
+        if (messages.stream().anyMatch(message -> message.getA() < 0)) {
+            throw new IllegalStateException("Cannot handle " + messages);
+        }
+        incomingMessage = String.valueOf(messages.size());
+    }
+
+    @Listener("topic17")
+    public String replyingListenerMethod(@MessageBody String message) {
+
+        invocationCount++;
+        return "re: " + message;
+    }
+
+    @WindowedListener(value = "telemetry/{deviceId}", window = "1s", key = "deviceId")
+    public void windowedListenerMethod(WindowAggregate window) {
+
+        incomingMessage = window.getKey() + "#" + window.getCount() + "#" + window.getMean();
+    }
+}
@@ -0,0 +1,197 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.topic.TopicFormat;
+import com.celadonsea.messagingframework.topic.TopicMatcher;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal MQTT 3.1.1 broker on the loopback interface for client tests. It acknowledges every
+ * packet, counts the published messages and forwards them at QoS 0 to the subscribed connections.
+ */
+@Slf4j
+public class BrokerStandIn implements Closeable {
+
+    private static final TopicFormat TOPIC_FORMAT = new TopicFormat('/', '+', '#');
+
+    private final ServerSocket serverSocket;
+
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    @Getter
+    private final AtomicLong publishedMessages = new AtomicLong();
+
+    /**
+     * Filters refused with a failure return code when subscribed.
+     */
+    @Getter
+    private final Set<String> rejectedFilters = new CopyOnWriteArraySet<>();
+
+    @Getter
+    private final List<String> subscribedFilters = new CopyOnWriteArrayList<>();
+
+    public BrokerStandIn() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "broker-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getUrl() {
+        return "tcp://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Connection connection = new Connection(serverSocket.accept());
+                connections.add(connection);
+                Thread reader = new Thread(connection::read, "broker-stand-in-connection");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                log.debug("Broker stand-in stopped accepting connections", e);
+            }
+        }
+    }
+
+    private class Connection {
+
+        private final Socket socket;
+
+        private final OutputStream out;
+
+        private final List<String> filters = new CopyOnWriteArrayList<>();
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.socket.setTcpNoDelay(true);
+            this.out = socket.getOutputStream();
+        }
+
+        private void read() {
+            try (DataInputStream in = new DataInputStream(socket.getInputStream())) {
+                int header;
+                while ((header = in.read()) >= 0) {
+                    byte[] body = new byte[readRemainingLength(in)];
+                    in.readFully(body);
+                    handle(header, body);
+                }
+            } catch (IOException e) {
+                log.debug("Broker stand-in connection closed", e);
+            } finally {
+                connections.remove(this);
+            }
+        }
+
+        private void handle(int header, byte[] body) throws IOException {
+            switch (header >> 4) {
+                case 1: // CONNECT
+                    write(0x20, new byte[] {0, 0});
+                    break;
+                case 3: // PUBLISH
+                    publishedMessages.incrementAndGet();
+                    int qos = (header >> 1) & 3;
+                    int topicLength = ((body[0] & 0xff) << 8) | (body[1] & 0xff);
+                    String topic = new String(body, 2, topicLength, StandardCharsets.UTF_8);
+                    int payloadOffset = 2 + topicLength;
+                    if (qos > 0) {
+                        write(qos == 1 ? 0x40 : 0x50, new byte[] {body[payloadOffset], body[payloadOffset + 1]});
+                        payloadOffset += 2;
+                    }
+                    forward(topic, body, topicLength, payloadOffset);
+                    break;
+                case 6: // PUBREL
+                    write(0x70, new byte[] {body[0], body[1]});
+                    break;
+                case 8: // SUBSCRIBE
+                    ByteArrayOutputStream subAck = new ByteArrayOutputStream();
+                    subAck.write(body[0]);
+                    subAck.write(body[1]);
+                    for (int position = 2; position < body.length; ) {
+                        int filterLength = ((body[position] & 0xff) << 8) | (body[position + 1] & 0xff);
+                        String filter = new String(body, position + 2, filterLength, StandardCharsets.UTF_8);
+                        position += 2 + filterLength + 1;
+                        if (rejectedFilters.contains(filter)) {
+                            subAck.write(0x80);
+                        } else {
+                            filters.add(filter);
+                            subscribedFilters.add(filter);
+                            subAck.write(0);
+                        }
+                    }
+                    write(0x90, subAck.toByteArray());
+                    break;
+                case 10: // UNSUBSCRIBE
+                    write(0xB0, new byte[] {body[0], body[1]});
+                    break;
+                case 12: // PINGREQ
+                    write(0xD0, new byte[0]);
+                    break;
+                default: // DISCONNECT
+                    socket.close();
+            }
+        }
+
+        private void forward(String topic, byte[] body, int topicLength, int payloadOffset) throws IOException {
+            byte[] forwarded = new byte[2 + topicLength + body.length - payloadOffset];
+            System.arraycopy(body, 0, forwarded, 0, 2 + topicLength);
+            System.arraycopy(body, payloadOffset, forwarded, 2 + topicLength, body.length - payloadOffset);
+            for (Connection connection : connections) {
+                for (String filter : connection.filters) {
+                    if (TopicMatcher.covers(filter, topic, TOPIC_FORMAT)) {
+                        connection.write(0x30, forwarded);
+                        break;
+                    }
+                }
+            }
+        }
+
+        private synchronized void write(int header, byte[] body) throws IOException {
+            out.write(header);
+            int length = body.length;
+            do {
+                int digit = length % 128;
+                length /= 128;
+                out.write(length > 0 ? digit | 0x80 : digit);
+            } while (length > 0);
+            out.write(body);
+            out.flush();
+        }
+
+        private int readRemainingLength(DataInputStream in) throws IOException {
+            int length = 0;
+            int multiplier = 1;
+            int digit;
+            do {
+                digit = in.readUnsignedByte();
+                length += (digit & 0x7f) * multiplier;
+                multiplier *= 128;
+            } while ((digit & 0x80) != 0);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.MessagingConfiguration;
+import com.celadonsea.messagingframework.core.ConnectionException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MessageBridgeTest {
+
+    private TestMessageClient source;
+
+    private TestMessageClient target;
+
+    @Before
+    public void setup() {
+        source = new TestMessageClient(new MessagingConfiguration());
+        source.connect();
+        target = new TestMessageClient(new MessagingConfiguration());
+        target.connect();
+    }
+
+    @Test
+    public void shouldForwardMessagesWithRewrittenTopic() {
+        MessageBridge bridge = MessageBridge.from(source, "factory/{site}/telemetry/{device}")
+            .to(target, "cloud/{site}/{device}")
+            .qos(1)
+            .start();
+
+        source.getCallBack().messageArrived("factory/berlin/telemetry/pump7", "42".getBytes());
+        source.getCallBack().messageArrived("factory/berlin/status", "ignored".getBytes());
+        bridge.close();
+
+        List<byte[]> forwarded = target.getPublishedMessages().get(target.getMessageKey("cloud/berlin/pump7", 1));
+        Assert.assertEquals(1, forwarded.size());
+        Assert.assertEquals("42", new String(forwarded.get(0)));
+        Assert.assertEquals(1, target.getPublishedMessages().size());
+        Assert.assertEquals(1, bridge.getForwardedMessages());
+        Assert.assertEquals(1, bridge.getLag().getCount());
+    }
+
+    @Test
+    public void shouldForwardToMultiLevelWildcardTarget() {
+        MessageBridge bridge = MessageBridge.from(source, "factory/#").to(target, "cloud/#").start();
+
+        source.getCallBack().messageArrived("factory/berlin/pump7", "42".getBytes());
+        bridge.close();
+
+        Assert.assertEquals(1, target.getPublishedMessages().get(target.getMessageKey("cloud/berlin/pump7", 0)).size());
+        Assert.assertEquals(1, target.getPublishedMessages().size());
+    }
+
+    @Test
+    public void shouldStopForwardingWhenClosed() {
+        MessageBridge bridge = MessageBridge.from(source, "factory/#").to(target, "cloud/{last}").start();
+        bridge.close();
+
+        source.getCallBack().messageArrived("factory/berlin", "42".getBytes());
+
+        Assert.assertTrue(target.getPublishedMessages().isEmpty());
+    }
+
+    @Test
+    public void shouldNotCountFailedPublishAsForwarded() {
+        target.setPublishFailure(new ConnectionException("broker unavailable"));
+        MessageBridge bridge = MessageBridge.from(source, "factory/#").to(target, "cloud/#").start();
+
+        source.getCallBack().messageArrived("factory/berlin", "42".getBytes());
+        bridge.close();
+
+        Assert.assertEquals(0, bridge.getForwardedMessages());
+        Assert.assertEquals(1, bridge.getLag().getCount());
+    }
+
+    @Test
+    public void shouldGiveUpClosingWhenPublishHangs() throws Exception {
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestMessageClient hangingTarget = new TestMessageClient(new MessagingConfiguration()) {
+            @Override
+            public void publishOrThrow(String topic, byte[] message, int qos) {
+                publishing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        MessageBridge bridge = MessageBridge.from(source, "factory/#").to(hangingTarget, "cloud/#").start();
+
+        source.getCallBack().messageArrived("factory/berlin", "42".getBytes());
+        Assert.assertTrue(publishing.await(5, TimeUnit.SECONDS));
+
+        Assert.assertFalse(bridge.close(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        Assert.assertTrue(bridge.close(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldDropMessagesWhenQueueIsFull() throws Exception {
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TestMessageClient slowTarget = new TestMessageClient(new MessagingConfiguration()) {
+            @Override
+            public void publishOrThrow(String topic, byte[] message, int qos) {
+                publishing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        MessageBridge bridge = MessageBridge.from(source, "factory/#").to(slowTarget, "cloud/#").bufferSize(1).start();
+
+        source.getCallBack().messageArrived("factory/berlin", "1".getBytes());
+        Assert.assertTrue(publishing.await(5, TimeUnit.SECONDS));
+        source.getCallBack().messageArrived("factory/berlin", "2".getBytes());
+        source.getCallBack().messageArrived("factory/berlin", "3".getBytes());
+
+        Assert.assertEquals(1, bridge.getDroppedMessages());
+        Assert.assertEquals(1, bridge.getQueuedMessages());
+        release.countDown();
+        Assert.assertTrue(bridge.close(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownTargetVariable() {
+        MessageBridge.from(source, "factory/{site}").to(target, "cloud/{device}").start();
+    }
+}
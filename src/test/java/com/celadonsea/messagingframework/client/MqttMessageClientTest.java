@@ -0,0 +1,86 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.core.ConnectionException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+public class MqttMessageClientTest {
+
+    private BrokerStandIn broker;
+
+    private MqttMessageClient client;
+
+    @Before
+    public void setup() throws Exception {
+        broker = new BrokerStandIn();
+        client = new MqttMessageClient(new TunedClientConfig(broker.getUrl(), "subscriber"));
+        client.connect();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        broker.close();
+    }
+
+    @Test
+    public void shouldRollBackRejectedSubscription() {
+        broker.getRejectedFilters().add("device/#");
+        BiConsumer<String, byte[]> consumer = (topic, message) -> { };
+
+        try {
+            client.subscribe("device/#", consumer);
+            Assert.fail("Rejected subscription must fail");
+        } catch (ConnectionException e) {
+            // the registry must not cover the rejected filter any more
+        }
+        client.subscribe("device/1/status", consumer);
+
+        Assert.assertEquals(Arrays.asList("device/1/status"), broker.getSubscribedFilters());
+    }
+
+    @Test
+    public void shouldRollBackRejectedBulkSubscription() {
+        broker.getRejectedFilters().add("device/#");
+        BiConsumer<String, byte[]> consumer = (topic, message) -> { };
+
+        try {
+            client.subscribe(Arrays.asList(new Subscription("device/#", consumer), new Subscription("device/#", (topic, message) -> { })));
+            Assert.fail("Rejected subscription must fail");
+        } catch (ConnectionException e) {
+            // both consumers of the rejected filter are rolled back
+        }
+        client.subscribe("device/1/status", consumer);
+
+        Assert.assertEquals(Arrays.asList("device/1/status"), broker.getSubscribedFilters());
+    }
+
+    @Test
+    public void shouldFailAsyncConnectionWhenBrokerIsUnreachable() throws Exception {
+        int closedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            closedPort = serverSocket.getLocalPort();
+        }
+        MqttMessageClient unreachableClient = new MqttMessageClient(new TunedClientConfig("tcp://localhost:" + closedPort, "unreachable"));
+
+        try {
+            unreachableClient.connectAsync().get(10, TimeUnit.SECONDS);
+            Assert.fail("Connection to an unreachable broker must fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ConnectionException);
+        }
+        try {
+            unreachableClient.publishOrThrow("device/1/status", new byte[0]);
+            Assert.fail("Publish without connection must fail");
+        } catch (ConnectionException e) {
+            // the client operations report the failed connection
+        }
+    }
+}
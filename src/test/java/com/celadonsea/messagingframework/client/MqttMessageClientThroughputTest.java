@@ -0,0 +1,80 @@
+package com.celadonsea.messagingframework.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class MqttMessageClientThroughputTest {
+
+    private static final int MESSAGES = 20_000;
+
+    private BrokerStandIn broker;
+
+    @Before
+    public void setup() throws Exception {
+        broker = new BrokerStandIn();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        broker.close();
+    }
+
+    @Test
+    public void shouldPublishWithTunedClient() throws InterruptedException {
+        MqttMessageClient client = new MqttMessageClient(new TunedClientConfig(broker.getUrl(), "tuned-publisher"));
+        client.connect();
+        byte[] payload = "{\"deviceId\":\"d1\",\"value\":42}".getBytes();
+
+        long qos0 = measure(() -> {
+            for (int i = 0; i < MESSAGES; i++) {
+                client.publish("load/qos0", payload, 0);
+            }
+        }, MESSAGES);
+        long qos1 = measure(() -> {
+            for (int i = 0; i < MESSAGES / 10; i++) {
+                client.publish("load/qos1", payload, 1);
+            }
+        }, MESSAGES / 10);
+        waitForBroker(MESSAGES + MESSAGES / 10);
+
+        log.info("Published {} msg/s at QoS 0, {} msg/s at QoS 1", qos0, qos1);
+        Assert.assertEquals(MESSAGES + MESSAGES / 10, broker.getPublishedMessages().get());
+    }
+
+    @Test
+    public void shouldReceiveWithTunedClient() throws InterruptedException {
+        MqttMessageClient subscriber = new MqttMessageClient(new TunedClientConfig(broker.getUrl(), "tuned-subscriber"));
+        subscriber.connect();
+        CountDownLatch received = new CountDownLatch(MESSAGES);
+        subscriber.subscribe("load/#", (topic, message) -> received.countDown());
+        MqttMessageClient publisher = new MqttMessageClient(new TunedClientConfig(broker.getUrl(), "tuned-source"));
+        publisher.connect();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            publisher.publish("load/telemetry", "42".getBytes(), 0);
+        }
+
+        Assert.assertTrue(received.await(30, TimeUnit.SECONDS));
+        log.info("Received {} msg/s", MESSAGES * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - start));
+    }
+
+    private long measure(Runnable publishing, int messages) {
+        long start = System.nanoTime();
+        publishing.run();
+        return messages * TimeUnit.SECONDS.toNanos(1) / Math.max(System.nanoTime() - start, 1);
+    }
+
+    private void waitForBroker(long messages) throws InterruptedException {
+        for (int i = 0; i < 300 && broker.getPublishedMessages().get() < messages; i++) {
+            Thread.sleep(100);
+        }
+    }
+}
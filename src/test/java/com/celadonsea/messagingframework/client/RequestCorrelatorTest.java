@@ -0,0 +1,91 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.MessagingConfiguration;
+import com.celadonsea.messagingframework.core.ConnectionException;
+import com.celadonsea.messagingframework.core.HashedTimerWheel;
+import com.celadonsea.messagingframework.message.MessageEnvelope;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class RequestCorrelatorTest {
+
+    private TestMessageClient messageClient;
+
+    private HashedTimerWheel timerWheel;
+
+    private RequestCorrelator requestCorrelator;
+
+    @Before
+    public void setup() {
+        messageClient = new TestMessageClient(new MessagingConfiguration());
+        messageClient.connect();
+        timerWheel = new HashedTimerWheel(1, TimeUnit.MILLISECONDS, 64, "test-timer");
+        requestCorrelator = new RequestCorrelator(messageClient, "replies/requester", timerWheel);
+    }
+
+    @After
+    public void tearDown() {
+        timerWheel.stop();
+    }
+
+    @Test
+    public void shouldCompleteRequestWithCorrelatedReply() throws Exception {
+        CompletableFuture<byte[]> first = requestCorrelator.request("service/echo", "first".getBytes(), Duration.ofSeconds(10));
+        CompletableFuture<byte[]> second = requestCorrelator.request("service/echo", "second".getBytes(), Duration.ofSeconds(10));
+        MessageEnvelope firstRequest = MessageEnvelope.unwrap(messageClient.getPublishedMessages().get(messageClient.getMessageKey("service/echo", 0)).get(0));
+        MessageEnvelope secondRequest = MessageEnvelope.unwrap(messageClient.getPublishedMessages().get(messageClient.getMessageKey("service/echo", 0)).get(1));
+
+        messageClient.getCallBack().messageArrived(secondRequest.getReplyTopic(), MessageEnvelope.wrapReply("second reply".getBytes(), secondRequest.getCorrelationId()));
+        messageClient.getCallBack().messageArrived(firstRequest.getReplyTopic(), MessageEnvelope.wrapReply("first reply".getBytes(), firstRequest.getCorrelationId()));
+
+        Assert.assertEquals("replies/requester", firstRequest.getReplyTopic());
+        Assert.assertEquals("first reply", new String(first.get(1, TimeUnit.SECONDS)));
+        Assert.assertEquals("second reply", new String(second.get(1, TimeUnit.SECONDS)));
+        Assert.assertEquals(0, requestCorrelator.getPendingRequests());
+    }
+
+    @Test
+    public void shouldFailRequestWhenPublishFails() throws Exception {
+        messageClient.setPublishFailure(new ConnectionException("broker unavailable"));
+
+        CompletableFuture<byte[]> reply = requestCorrelator.request("service/echo", "hello".getBytes(), Duration.ofSeconds(10));
+
+        Assert.assertTrue(reply.isCompletedExceptionally());
+        Assert.assertEquals(0, requestCorrelator.getPendingRequests());
+    }
+
+    @Test
+    public void shouldNotCorrelateRepliesOfAnotherCorrelator() throws Exception {
+        RequestCorrelator previous = new RequestCorrelator(messageClient, "replies/requester", timerWheel);
+        previous.request("service/echo", "old".getBytes(), Duration.ofSeconds(10));
+        requestCorrelator.request("service/echo", "new".getBytes(), Duration.ofSeconds(10));
+        List<byte[]> requests = messageClient.getPublishedMessages().get(messageClient.getMessageKey("service/echo", 0));
+
+        Assert.assertNotEquals(MessageEnvelope.unwrap(requests.get(0)).getCorrelationId(), MessageEnvelope.unwrap(requests.get(1)).getCorrelationId());
+    }
+
+    @Test
+    public void shouldTimeOutRequestWithoutReply() throws Exception {
+        CompletableFuture<byte[]> reply = requestCorrelator.request("service/silent", "hello".getBytes(), Duration.ofMillis(20));
+
+        try {
+            reply.get(1, TimeUnit.SECONDS);
+            Assert.fail("Request should time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertEquals(0, requestCorrelator.getPendingRequests());
+
+        MessageEnvelope request = MessageEnvelope.unwrap(messageClient.getPublishedMessages().get(messageClient.getMessageKey("service/silent", 0)).get(0));
+        messageClient.getCallBack().messageArrived(request.getReplyTopic(), MessageEnvelope.wrapReply("late".getBytes(), request.getCorrelationId()));
+    }
+}
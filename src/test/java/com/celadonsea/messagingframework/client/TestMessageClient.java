@@ -1,15 +1,22 @@
 package com.celadonsea.messagingframework.client;
 
 import com.celadonsea.messagingframework.config.MessageClientConfig;
+import com.celadonsea.messagingframework.core.HashedTimerWheel;
 import com.celadonsea.messagingframework.listener.CallBack;
+import com.celadonsea.messagingframework.listener.MessageStream;
 import com.celadonsea.messagingframework.topic.TopicFormat;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
 
 @Slf4j
@@ -22,12 +29,17 @@ public class TestMessageClient implements MessageClient {
 
     private MessageClientConfig messageClientConfig;
 
+    private RequestCorrelator requestCorrelator;
+
     public TestMessageClient(MessageClientConfig messageClientConfig) {
         this.messageClientConfig = messageClientConfig;
     }
 
     @Getter
-    private Map<String, List<byte[]>> publishedMessages = new HashMap<>();
+    private Map<String, List<byte[]>> publishedMessages = new ConcurrentHashMap<>();
+
+    @Setter
+    private volatile RuntimeException publishFailure;
 
     @Override
     public void connect() {
@@ -35,6 +47,12 @@ public class TestMessageClient implements MessageClient {
         callBack = new CallBack(this);
     }
 
+    @Override
+    public CompletableFuture<Void> connectAsync() {
+        connect();
+        return CompletableFuture.completedFuture(null);
+    }
+
     @Override
     public void reconnect(CallBack callBack) {
         this.callBack = callBack;
@@ -47,11 +65,28 @@ public class TestMessageClient implements MessageClient {
 
     @Override
     public void publish(String topic, byte[] message, int qos) {
-        String key = getMessageKey(topic, qos);
-        if (!publishedMessages.containsKey(key)) {
-            publishedMessages.put(key, new ArrayList<>());
+        publishedMessages.computeIfAbsent(getMessageKey(topic, qos), key -> new CopyOnWriteArrayList<>()).add(message);
+    }
+
+    @Override
+    public void publishOrThrow(String topic, byte[] message) {
+        publishOrThrow(topic, message, DEFAULT_QOS);
+    }
+
+    @Override
+    public void publishOrThrow(String topic, byte[] message, int qos) {
+        if (publishFailure != null) {
+            throw publishFailure;
         }
-        publishedMessages.get(key).add(message);
+        publish(topic, message, qos);
+    }
+
+    @Override
+    public synchronized CompletableFuture<byte[]> request(String topic, byte[] payload, Duration timeout) {
+        if (requestCorrelator == null) {
+            requestCorrelator = new RequestCorrelator(this, "replies/" + messageClientConfig.getClientId(), HashedTimerWheel.shared());
+        }
+        return requestCorrelator.request(topic, payload, timeout);
     }
 
     public String getMessageKey(String topic, int qos) {
@@ -59,9 +94,34 @@ public class TestMessageClient implements MessageClient {
     }
 
     @Override
-    public void subscribe(String topic, BiConsumer<String, byte[]> messageConsumer) {
+    public SubscriptionHandle subscribe(String topic, BiConsumer<String, byte[]> messageConsumer) {
         callBack.subscribe(topic, messageConsumer);
         log.info("Subscribed to {}", topic);
+        return new SubscriptionHandle(this, topic, messageConsumer);
+    }
+
+    @Override
+    public List<SubscriptionHandle> subscribe(Collection<Subscription> subscriptions) {
+        callBack.subscribe(subscriptions);
+        List<SubscriptionHandle> subscriptionHandles = new ArrayList<>();
+        subscriptions.forEach(subscription -> subscriptionHandles.add(new SubscriptionHandle(this, subscription.getTopic(), subscription.getMessageConsumer())));
+        return subscriptionHandles;
+    }
+
+    @Override
+    public void unsubscribe(SubscriptionHandle subscriptionHandle) {
+        callBack.unsubscribe(subscriptionHandle.getTopic(), subscriptionHandle.getMessageConsumer());
+        log.info("Unsubscribed from {}", subscriptionHandle.getTopic());
+    }
+
+    @Override
+    public void unsubscribe(Collection<SubscriptionHandle> subscriptionHandles) {
+        callBack.unsubscribe(subscriptionHandles);
+    }
+
+    @Override
+    public MessageStream stream(String topic, int bufferSize, MessageStream.Overflow overflow) {
+        return new MessageStream(this, topic, bufferSize, overflow);
     }
 
     @Override
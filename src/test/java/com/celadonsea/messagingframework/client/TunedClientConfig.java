@@ -0,0 +1,83 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.config.MessageClientConfig;
+
+/**
+ * Client configuration with the performance options set, for tests against the broker stand-in.
+ */
+class TunedClientConfig implements MessageClientConfig {
+
+    private final String brokerUrl;
+
+    private final String clientId;
+
+    TunedClientConfig(String brokerUrl, String clientId) {
+        this.brokerUrl = brokerUrl;
+        this.clientId = clientId;
+    }
+
+    @Override
+    public String getClientType() {
+        return "mqtt";
+    }
+
+    @Override
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public String getBrokerUrl() {
+        return brokerUrl;
+    }
+
+    @Override
+    public int getMaxInFlight() {
+        return 1000;
+    }
+
+    @Override
+    public int getConnectionTimeout() {
+        return 10;
+    }
+
+    @Override
+    public int getKeepAliveInterval() {
+        return 60;
+    }
+
+    @Override
+    public int getQos() {
+        return 0;
+    }
+
+    @Override
+    public boolean isConnectionSecured() {
+        return false;
+    }
+
+    @Override
+    public int getExecutorThreads() {
+        return 4;
+    }
+
+    @Override
+    public boolean isTcpNoDelay() {
+        return true;
+    }
+
+    @Override
+    public int getSendBufferSize() {
+        return 256 * 1024;
+    }
+
+    @Override
+    public int getReceiveBufferSize() {
+        return 256 * 1024;
+    }
+
+    @Override
+    public long getPublishTimeToWait() {
+        return 10_000;
+    }
+}
@@ -0,0 +1,29 @@
+package com.celadonsea.messagingframework.client;
+
+import com.celadonsea.messagingframework.config.SocketOptions;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.Socket;
+
+public class TunedSocketFactoryTest {
+
+    @Test
+    public void shouldApplySocketOptionsBeforeConnecting() throws IOException {
+        try (Socket socket = new TunedSocketFactory(new SocketOptions(true, 128 * 1024, 128 * 1024)).createSocket()) {
+            Assert.assertFalse(socket.isConnected());
+            Assert.assertTrue(socket.getTcpNoDelay());
+            Assert.assertTrue(socket.getSendBufferSize() >= 128 * 1024);
+            Assert.assertTrue(socket.getReceiveBufferSize() >= 128 * 1024);
+        }
+    }
+
+    @Test
+    public void shouldKeepSystemDefaults() throws IOException {
+        try (Socket socket = new TunedSocketFactory(SocketOptions.DEFAULT).createSocket(); Socket plain = new Socket()) {
+            Assert.assertEquals(plain.getTcpNoDelay(), socket.getTcpNoDelay());
+            Assert.assertEquals(plain.getReceiveBufferSize(), socket.getReceiveBufferSize());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.celadonsea.messagingframework.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void shouldComputeValueOnce() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10);
+        AtomicInteger computations = new AtomicInteger();
+
+        cache.computeIfAbsent("a", key -> computations.incrementAndGet());
+        int value = cache.computeIfAbsent("a", key -> computations.incrementAndGet());
+
+        Assert.assertEquals(1, value);
+        Assert.assertEquals(1, computations.get());
+    }
+
+    @Test
+    public void shouldStayWithinCapacity() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(10);
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Integer.valueOf(i * 2), cache.computeIfAbsent(i, key -> key * 2));
+        }
+
+        Assert.assertTrue(cache.size() <= 10);
+    }
+}
@@ -0,0 +1,72 @@
+package com.celadonsea.messagingframework.core;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HashedTimerWheelTest {
+
+    private HashedTimerWheel timerWheel = new HashedTimerWheel(1, TimeUnit.MILLISECONDS, 8, "test-timer");
+
+    @After
+    public void tearDown() {
+        timerWheel.stop();
+    }
+
+    @Test
+    public void shouldExpireTimeoutsInDeadlineOrder() throws InterruptedException {
+        List<Integer> expired = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        // beyond one rotation of the wheel as well
+        timerWheel.schedule(() -> { expired.add(3); latch.countDown(); }, 40, TimeUnit.MILLISECONDS);
+        timerWheel.schedule(() -> { expired.add(1); latch.countDown(); }, 5, TimeUnit.MILLISECONDS);
+        timerWheel.schedule(() -> { expired.add(2); latch.countDown(); }, 20, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(3, expired.size());
+        Assert.assertEquals(Integer.valueOf(1), expired.get(0));
+        Assert.assertEquals(Integer.valueOf(2), expired.get(1));
+        Assert.assertEquals(Integer.valueOf(3), expired.get(2));
+    }
+
+    @Test
+    public void shouldNotExpireCancelledTimeout() throws InterruptedException {
+        CountDownLatch cancelledLatch = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        Timeout cancelled = timerWheel.schedule(cancelledLatch::countDown, 5, TimeUnit.MILLISECONDS);
+        Timeout timeout = timerWheel.schedule(latch::countDown, 20, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(cancelled.cancel());
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, cancelledLatch.getCount());
+        Assert.assertTrue(cancelled.isCancelled());
+        Assert.assertTrue(timeout.isExpired());
+        Assert.assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void shouldRunPeriodicTimeoutUntilCancelled() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(3);
+        Timeout timeout = timerWheel.scheduleAtFixedRate(() -> {
+            runs.incrementAndGet();
+            latch.countDown();
+        }, 0, 5, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(timeout.cancel());
+        int runsAtCancel = runs.get();
+        Thread.sleep(30);
+
+        Assert.assertFalse(timeout.isExpired());
+        // the run in progress when cancelling may still finish
+        Assert.assertTrue(runs.get() <= runsAtCancel + 1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.celadonsea.messagingframework.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LogThrottleTest {
+
+    @Test
+    public void shouldLetThroughOncePerInterval() throws InterruptedException {
+        LogThrottle logThrottle = new LogThrottle(50, TimeUnit.MILLISECONDS);
+
+        Assert.assertEquals(0, logThrottle.tryAcquire());
+        Assert.assertEquals(-1, logThrottle.tryAcquire());
+        Assert.assertEquals(-1, logThrottle.tryAcquire());
+        Thread.sleep(60);
+
+        Assert.assertEquals(2, logThrottle.tryAcquire());
+        Assert.assertEquals(-1, logThrottle.tryAcquire());
+    }
+}
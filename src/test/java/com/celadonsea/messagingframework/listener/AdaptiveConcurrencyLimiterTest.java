@@ -0,0 +1,60 @@
+package com.celadonsea.messagingframework.listener;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void shouldDecreaseLimitWhenLatencyGrows() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10);
+        Assert.assertTrue(limiter.tryAcquire());
+        limiter.release(1_000_000, false);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+            limiter.release(10_000_000, false);
+        }
+
+        Assert.assertTrue(limiter.getLimit() < 10);
+        Assert.assertTrue(limiter.getLimit() >= 1);
+    }
+
+    @Test
+    public void shouldDecreaseLimitOnFailure() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10);
+
+        Assert.assertTrue(limiter.tryAcquire());
+        limiter.release(1_000_000, true);
+
+        Assert.assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldRecoverLimitWhenSaturatedAndFast() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2);
+        Assert.assertTrue(limiter.tryAcquire());
+        limiter.release(1_000_000, true);
+        Assert.assertEquals(1, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(limiter.tryAcquire());
+            limiter.release(1_000_000, false);
+        }
+
+        Assert.assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldRefusePermitAtLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2);
+
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertFalse(limiter.tryAcquire());
+        limiter.cancel();
+
+        Assert.assertTrue(limiter.tryAcquire());
+        Assert.assertEquals(2, limiter.getLimit());
+    }
+}
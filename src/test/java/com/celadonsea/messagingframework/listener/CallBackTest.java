@@ -1,18 +1,30 @@
 package com.celadonsea.messagingframework.listener;
 
 import com.celadonsea.messagingframework.TestMessagingController;
+import com.celadonsea.messagingframework.annotation.BatchListener;
 import com.celadonsea.messagingframework.annotation.Listener;
 import com.celadonsea.messagingframework.annotation.MessagingController;
 import com.celadonsea.messagingframework.client.MessageClient;
 import com.celadonsea.messagingframework.client.TestMessageClient;
 import com.celadonsea.messagingframework.config.MessageClientConfig;
+import com.celadonsea.messagingframework.message.CompressionCodec;
+import com.celadonsea.messagingframework.message.MessageEnvelope;
+import com.celadonsea.messagingframework.metrics.ListenerFailures;
+import com.celadonsea.messagingframework.metrics.ListenerLatencies;
 import com.celadonsea.messagingframework.scanner.MessageCallbackPreProcessor;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
 
 public class CallBackTest {
 
@@ -35,6 +47,11 @@ public class CallBackTest {
         register(testMessagingController);
     }
 
+    @After
+    public void tearDown() {
+        messageCallbackPreProcessor.shutdown();
+    }
+
     private MessageClientConfig getConfig() {
         return new MessageClientConfig() {
             @Override
@@ -95,6 +112,9 @@ public class CallBackTest {
                 if (methodAnnotation.annotationType() == Listener.class) {
                     messageCallbackPreProcessor.processListenerMethod(handler, messageClient, method, (Listener) methodAnnotation, baseTopic);
                 }
+                if (methodAnnotation.annotationType() == BatchListener.class) {
+                    messageCallbackPreProcessor.processBatchListenerMethod(handler, messageClient, method, (BatchListener) methodAnnotation, baseTopic);
+                }
             }
         }
     }
@@ -194,4 +214,244 @@ public class CallBackTest {
 
         Assert.assertEquals(content, testMessagingController.getIncomingMessage());
     }
+
+    @Test
+    public void shouldReceiveByteBufferMessage() {
+        String content = "bytebuffertest";
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic10",
+            content.getBytes());
+
+        Assert.assertEquals(content, testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldReceiveInputStreamMessage() {
+        String content = "inputstreamtest";
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic11",
+            content.getBytes());
+
+        Assert.assertEquals(content, testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldReceiveJsonParserMessage() {
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic12",
+            ("{'a':48,'b':'hello streaming'}".replaceAll("'", "\"").getBytes()));
+
+        Assert.assertEquals("ab", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldDecodeLazyMessageWhenAccessed() {
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic13/true",
+            ("{'a':48,'b':'hello lazy messaging'}".replaceAll("'", "\"").getBytes()));
+
+        Assert.assertEquals("hello lazy messaging", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldNotDecodeLazyMessageWhenNotAccessed() {
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic13/false",
+            "not a json".getBytes());
+
+        Assert.assertEquals("not decoded", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldReceiveBatchWhenFull() {
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/batch/1",
+            ("{'timestamp':1,'value':{'a':1,'b':'first'}}".replaceAll("'", "\"").getBytes()));
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/batch/2",
+            ("{'timestamp':1,'value':{'a':2,'b':'second'}}".replaceAll("'", "\"").getBytes()));
+
+        Assert.assertNull(testMessagingController.getIncomingMessage());
+
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/batch/3",
+            ("{'timestamp':1,'value':{'a':3,'b':'third'}}".replaceAll("'", "\"").getBytes()));
+
+        Assert.assertEquals("first#1;second#2;third#3;", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldReceiveBatchAfterMaxWait() throws InterruptedException {
+        callBack.messageArrived("valami/topicvariable1c/valami3/timedbatch", "1".getBytes());
+        callBack.messageArrived("valami/topicvariable1c/valami3/timedbatch", "2".getBytes());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"[1, 2]".equals(testMessagingController.getIncomingMessage()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("[1, 2]", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldSendBatchMessagesToDeadLetterTopicOneByOne() throws InterruptedException {
+        callBack.messageArrived("valami/topicvariable1c/valami3/failingbatch", "{\"a\":1}".getBytes());
+        callBack.messageArrived("valami/topicvariable1c/valami3/failingbatch", "not a json".getBytes());
+        callBack.messageArrived("valami/topicvariable1c/valami3/failingbatch", "{\"a\":-1}".getBytes());
+
+        String deadLetterKey = ((TestMessageClient) messageClient).getMessageKey("dlq/valami/topicvariable1c/valami3/failingbatch", 0);
+        Map<String, List<byte[]>> publishedMessages = ((TestMessageClient) messageClient).getPublishedMessages();
+        for (int i = 0; i < 100 && (!publishedMessages.containsKey(deadLetterKey) || publishedMessages.get(deadLetterKey).size() < 3); i++) {
+            Thread.sleep(10);
+        }
+        ListenerFailures failures = messageCallbackPreProcessor.getListenerFailures()
+            .get(TestMessagingController.class.getName() + "#failingBatchListenerMethod");
+        List<String> deadLetters = new ArrayList<>();
+        publishedMessages.get(deadLetterKey).forEach(message -> deadLetters.add(new String(message)));
+        // the unreadable message is dead lettered right away, the failing batch after its retry
+        Assert.assertEquals(Arrays.asList("not a json", "{\"a\":1}", "{\"a\":-1}"), deadLetters);
+        Assert.assertEquals(2, testMessagingController.getInvocationCount());
+        Assert.assertEquals(3, failures.getFailures().sum());
+        Assert.assertEquals(1, failures.getRetries().sum());
+        Assert.assertEquals(3, failures.getDeadLetters().sum());
+    }
+
+    @Test
+    public void shouldDropRedeliveredMessageByTopicParameter() {
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic14/1", "first".getBytes());
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic14/1", "first again".getBytes());
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic14/2", "second".getBytes());
+
+        Assert.assertEquals(2, testMessagingController.getInvocationCount());
+        Assert.assertEquals("second", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldDropRedeliveredMessageByPayloadField() {
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic15",
+            ("{'nested':{'id':'x'},'id':'a1','value':1}".replaceAll("'", "\"").getBytes()));
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic15",
+            ("{'id':'a1','value':2}".replaceAll("'", "\"").getBytes()));
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic15",
+            ("{'id':'a2','value':3}".replaceAll("'", "\"").getBytes()));
+
+        Assert.assertEquals(2, testMessagingController.getInvocationCount());
+        Assert.assertEquals("{\"id\":\"a2\",\"value\":3}", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldRecordLatenciesOfTracedMessage() {
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic4",
+            MessageEnvelope.wrap("hello traced messaging".getBytes(), System.currentTimeMillis()));
+
+        ListenerLatencies latencies = messageCallbackPreProcessor.getListenerLatencies()
+            .get(TestMessagingController.class.getName() + "#simpleStringListenerMethod");
+        Assert.assertEquals("hello traced messaging#topicvariable1c", testMessagingController.getIncomingMessage());
+        Assert.assertEquals(1, latencies.getBrokerTransit().getCount());
+        Assert.assertEquals(1, latencies.getQueueing().getCount());
+        Assert.assertEquals(1, latencies.getHandler().getCount());
+    }
+
+    @Test
+    public void shouldNotRecordLatenciesOfPlainMessage() {
+        callBack.messageArrived(
+            "valami/topicvariable1c/valami3/topic4",
+            "hello simple messaging".getBytes());
+
+        ListenerLatencies latencies = messageCallbackPreProcessor.getListenerLatencies()
+            .get(TestMessagingController.class.getName() + "#simpleStringListenerMethod");
+        Assert.assertEquals(0, latencies.getHandler().getCount());
+    }
+
+    @Test
+    public void shouldSubscribeDeferredListenersOnFlush() {
+        callBack = new CallBack(messageClient);
+        messageClient.reconnect(callBack);
+        testMessagingController = new TestMessagingController();
+        messageCallbackPreProcessor.deferSubscriptions();
+        register(testMessagingController);
+
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic4", "too early".getBytes());
+        Assert.assertNull(testMessagingController.getIncomingMessage());
+
+        messageCallbackPreProcessor.flushSubscriptions().join();
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic4", "hello deferred messaging".getBytes());
+        Assert.assertEquals("hello deferred messaging#topicvariable1c", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldSendMessageToDeadLetterTopicAfterRetries() throws InterruptedException {
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic16", "fail always".getBytes());
+
+        String deadLetterKey = ((TestMessageClient) messageClient).getMessageKey("dlq/valami/topicvariable1c/valami3/topic16", 0);
+        for (int i = 0; i < 100 && !((TestMessageClient) messageClient).getPublishedMessages().containsKey(deadLetterKey); i++) {
+            Thread.sleep(10);
+        }
+        ListenerFailures failures = messageCallbackPreProcessor.getListenerFailures()
+            .get(TestMessagingController.class.getName() + "#failingListenerMethod");
+        Assert.assertEquals(3, testMessagingController.getInvocationCount());
+        Assert.assertEquals("fail always", new String(((TestMessageClient) messageClient).getPublishedMessages().get(deadLetterKey).get(0)));
+        Assert.assertEquals(3, failures.getFailures().sum());
+        Assert.assertEquals(2, failures.getRetries().sum());
+        Assert.assertEquals(1, failures.getDeadLetters().sum());
+    }
+
+    @Test
+    public void shouldNotCallListenerWithUnreadableMessage() {
+        callBack.messageArrived("valami/topicvariable1b/valami3/topic3", "not json".getBytes());
+
+        ListenerFailures failures = messageCallbackPreProcessor.getListenerFailures()
+            .get(TestMessagingController.class.getName() + "#pojoListenerMethod");
+        Assert.assertNull(testMessagingController.getIncomingMessage());
+        Assert.assertEquals(1, failures.getFailures().sum());
+        Assert.assertEquals(0, failures.getRetries().sum());
+    }
+
+    @Test
+    public void shouldReceiveCompressedMessage() {
+        CompressionCodec codec = new CompressionCodec(Collections.singletonMap("#", new byte[0]), messageClient.topicFormat());
+        byte[] traced = MessageEnvelope.wrap("hello compressed compressed compressed messaging".getBytes(), System.currentTimeMillis());
+
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic4", codec.encode("valami/topicvariable1c/valami3/topic4", traced));
+
+        Assert.assertEquals("hello compressed compressed compressed messaging#topicvariable1c", testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldDropNestedCompressedMessage() {
+        CompressionCodec codec = new CompressionCodec(Collections.singletonMap("#", new byte[0]), messageClient.topicFormat());
+        byte[] compressed = codec.encode("valami/topicvariable1c/valami3/topic4", "hello compressed compressed compressed messaging".getBytes());
+        Deflater deflater = new Deflater();
+        deflater.setInput(compressed);
+        deflater.finish();
+        byte[] nested = new byte[compressed.length + 64];
+        int nestedLength = deflater.deflate(nested);
+
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic4", MessageEnvelope.wrapCompressed(nested, nestedLength));
+
+        Assert.assertNull(testMessagingController.getIncomingMessage());
+    }
+
+    @Test
+    public void shouldPublishReplyOfListener() {
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic17", MessageEnvelope.wrapRequest("ping".getBytes(), "replies/requester", 42L));
+
+        String replyKey = ((TestMessageClient) messageClient).getMessageKey("replies/requester", 0);
+        MessageEnvelope reply = MessageEnvelope.unwrap(((TestMessageClient) messageClient).getPublishedMessages().get(replyKey).get(0));
+        Assert.assertNotNull(reply);
+        Assert.assertTrue(reply.isCorrelated());
+        Assert.assertEquals(42L, reply.getCorrelationId());
+        Assert.assertEquals("re: ping", new String(reply.getPayload()));
+    }
+
+    @Test
+    public void shouldNotPublishReplyOfPlainMessage() {
+        callBack.messageArrived("valami/topicvariable1c/valami3/topic17", "ping".getBytes());
+
+        Assert.assertEquals(1, testMessagingController.getInvocationCount());
+        Assert.assertTrue(((TestMessageClient) messageClient).getPublishedMessages().isEmpty());
+    }
 }
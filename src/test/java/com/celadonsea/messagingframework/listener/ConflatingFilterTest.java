@@ -0,0 +1,52 @@
+package com.celadonsea.messagingframework.listener;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConflatingFilterTest {
+
+    @Test
+    public void shouldHandleOnlyNewestMessagePerKey() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<String> handledMessages = new ArrayList<>();
+        ConflatingFilter conflatingFilter = new ConflatingFilter(
+            (topic, message) -> handledMessages.add(topic + "=" + new String(message)),
+            (topic, message) -> null,
+            tasks::add);
+
+        conflatingFilter.accept("device/1/status", "on".getBytes());
+        conflatingFilter.accept("device/2/status", "off".getBytes());
+        conflatingFilter.accept("device/1/status", "off".getBytes());
+        conflatingFilter.accept("device/1/status", "broken".getBytes());
+        tasks.forEach(Runnable::run);
+
+        Assert.assertEquals(1, tasks.size());
+        Assert.assertEquals(2, handledMessages.size());
+        Assert.assertEquals("device/1/status=broken", handledMessages.get(0));
+        Assert.assertEquals("device/2/status=off", handledMessages.get(1));
+        Assert.assertEquals(2, conflatingFilter.getConflatedMessages().sum());
+    }
+
+    @Test
+    public void shouldConflateByExtractedKey() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<String> handledMessages = new ArrayList<>();
+        ConflatingFilter conflatingFilter = new ConflatingFilter(
+            (topic, message) -> handledMessages.add(topic),
+            (topic, message) -> topic.split("/")[1],
+            tasks::add);
+
+        conflatingFilter.accept("device/1/status", new byte[0]);
+        conflatingFilter.accept("device/1/config", new byte[0]);
+        tasks.forEach(Runnable::run);
+        conflatingFilter.accept("device/1/status", new byte[0]);
+        tasks.get(1).run();
+
+        Assert.assertEquals(2, tasks.size());
+        Assert.assertEquals("device/1/config", handledMessages.get(0));
+        Assert.assertEquals("device/1/status", handledMessages.get(1));
+    }
+}
@@ -0,0 +1,50 @@
+package com.celadonsea.messagingframework.listener;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeduplicationCacheTest {
+
+    @Test
+    public void shouldRecognizeSeenIds() {
+        DeduplicationCache cache = new DeduplicationCache(100, 60000);
+
+        Assert.assertTrue(cache.add("first"));
+        Assert.assertTrue(cache.add("second"));
+        Assert.assertFalse(cache.add("first"));
+        Assert.assertFalse(cache.add("second"));
+    }
+
+    @Test
+    public void shouldKeepIdsOfPreviousGeneration() {
+        DeduplicationCache cache = new DeduplicationCache(4, 60000);
+
+        cache.add("first");
+        cache.add("second");
+        cache.add("third");
+
+        Assert.assertFalse(cache.add("first"));
+    }
+
+    @Test
+    public void shouldForgetIdsBeyondCapacity() {
+        DeduplicationCache cache = new DeduplicationCache(4, 60000);
+
+        for (int index = 0; index < 6; index++) {
+            cache.add("id" + index);
+        }
+
+        Assert.assertTrue(cache.add("id0"));
+    }
+
+    @Test
+    public void shouldForgetExpiredIds() throws InterruptedException {
+        DeduplicationCache cache = new DeduplicationCache(100, 20);
+
+        cache.add("first");
+        Thread.sleep(30);
+        cache.add("second");
+
+        Assert.assertTrue(cache.add("first"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.client.MessageClient;
+import com.celadonsea.messagingframework.client.TestMessageClient;
+import com.celadonsea.messagingframework.message.ReceivedMessage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class MessageStreamTest {
+
+    private MessageClient messageClient;
+
+    private CallBack callBack;
+
+    private List<String> received;
+
+    private List<Throwable> errors;
+
+    private Subscription subscription;
+
+    @Before
+    public void setup() {
+        messageClient = new TestMessageClient(null);
+        callBack = new CallBack(messageClient);
+        messageClient.reconnect(callBack);
+        received = new CopyOnWriteArrayList<>();
+        errors = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    public void shouldDeliverOnlyRequestedMessages() {
+        messageClient.stream("stream/+", 10).subscribe(collectingSubscriber());
+
+        subscription.request(2);
+        callBack.messageArrived("stream/1", "first".getBytes());
+        callBack.messageArrived("stream/2", "second".getBytes());
+        callBack.messageArrived("stream/3", "third".getBytes());
+
+        Assert.assertEquals(2, received.size());
+
+        subscription.request(1);
+
+        Assert.assertEquals(3, received.size());
+        Assert.assertEquals("stream/3#third", received.get(2));
+    }
+
+    @Test
+    public void shouldSignalErrorWhenBufferOverflows() {
+        messageClient.stream("stream/+", 1).subscribe(collectingSubscriber());
+
+        callBack.messageArrived("stream/1", "first".getBytes());
+        callBack.messageArrived("stream/2", "second".getBytes());
+        subscription.request(2);
+
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertEquals(1, errors.size());
+        Assert.assertTrue(callBack.getBrokerSubscriptions().isEmpty());
+    }
+
+    @Test
+    public void shouldDropMessagesWhenBufferIsFull() {
+        MessageStream stream = messageClient.stream("stream/+", 1, MessageStream.Overflow.DROP);
+        stream.subscribe(collectingSubscriber());
+
+        callBack.messageArrived("stream/1", "first".getBytes());
+        callBack.messageArrived("stream/2", "second".getBytes());
+        subscription.request(2);
+        callBack.messageArrived("stream/3", "third".getBytes());
+
+        Assert.assertEquals(2, received.size());
+        Assert.assertEquals("stream/3#third", received.get(1));
+        Assert.assertEquals(1, stream.getDroppedMessages().sum());
+        Assert.assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void shouldStopDeliveringAfterCancel() {
+        messageClient.stream("stream/+", 10).subscribe(collectingSubscriber());
+
+        subscription.request(Long.MAX_VALUE);
+        callBack.messageArrived("stream/1", "first".getBytes());
+        subscription.cancel();
+        callBack.messageArrived("stream/2", "second".getBytes());
+
+        Assert.assertEquals(1, received.size());
+        Assert.assertTrue(callBack.getBrokerSubscriptions().isEmpty());
+    }
+
+    private Subscriber<ReceivedMessage> collectingSubscriber() {
+        return new Subscriber<ReceivedMessage>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+            }
+
+            @Override
+            public void onNext(ReceivedMessage message) {
+                received.add(message.getTopic() + "#" + new String(message.getPayload()));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                errors.add(t);
+            }
+
+            @Override
+            public void onComplete() {
+                // streams never complete
+            }
+        };
+    }
+}
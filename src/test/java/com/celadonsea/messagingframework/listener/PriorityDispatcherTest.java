@@ -0,0 +1,163 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.annotation.Priority;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+public class PriorityDispatcherTest {
+
+    private PriorityDispatcher priorityDispatcher;
+
+    private List<String> dispatchedTopics;
+
+    @Before
+    public void setup() {
+        priorityDispatcher = new PriorityDispatcher(Executors.defaultThreadFactory());
+        dispatchedTopics = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        priorityDispatcher.shutdown();
+    }
+
+    @Test
+    public void shouldDispatchNormalPriorityBeforeQueuedLowPriority() throws InterruptedException {
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        BiConsumer<String, byte[]> low = priorityDispatcher.dispatch(Priority.LOW, (topic, message) -> {
+            if (topic.equals("low0")) {
+                started.countDown();
+                await(blocking);
+            }
+            dispatchedTopics.add(topic);
+            done.countDown();
+        });
+        BiConsumer<String, byte[]> normal = priorityDispatcher.dispatch(Priority.NORMAL, (topic, message) -> {
+            dispatchedTopics.add(topic);
+            done.countDown();
+        });
+
+        low.accept("low0", new byte[0]);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        low.accept("low1", new byte[0]);
+        low.accept("low2", new byte[0]);
+        normal.accept("normal", new byte[0]);
+        blocking.countDown();
+
+        Assert.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals("low0", dispatchedTopics.get(0));
+        Assert.assertEquals("normal", dispatchedTopics.get(1));
+    }
+
+    @Test
+    public void shouldDispatchWithoutPriorityOnReceivingThread() {
+        Thread receivingThread = Thread.currentThread();
+        priorityDispatcher.dispatch(Priority.NONE, (topic, message) -> Assert.assertSame(receivingThread, Thread.currentThread()))
+            .accept("topic", new byte[0]);
+    }
+
+    @Test
+    public void shouldDispatchQueuedMessagesOnShutdown() {
+        CountDownLatch blocking = new CountDownLatch(1);
+        BiConsumer<String, byte[]> normal = priorityDispatcher.dispatch(Priority.NORMAL, (topic, message) -> {
+            await(blocking);
+            dispatchedTopics.add(topic);
+        });
+        normal.accept("first", new byte[0]);
+        normal.accept("second", new byte[0]);
+        blocking.countDown();
+
+        priorityDispatcher.shutdown();
+
+        Assert.assertEquals(2, dispatchedTopics.size());
+    }
+
+    @Test
+    public void shouldDropOldestMessageWhenLaneIsFull() throws InterruptedException {
+        PriorityDispatcher smallDispatcher = new PriorityDispatcher(Executors.defaultThreadFactory(), 1, 2);
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        BiConsumer<String, byte[]> low = smallDispatcher.dispatch(Priority.LOW, (topic, message) -> {
+            if (topic.equals("low0")) {
+                started.countDown();
+                await(blocking);
+            }
+            dispatchedTopics.add(topic);
+        });
+
+        low.accept("low0", new byte[0]);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        low.accept("low1", new byte[0]);
+        low.accept("low2", new byte[0]);
+        low.accept("low3", new byte[0]);
+        blocking.countDown();
+        smallDispatcher.shutdown();
+
+        Assert.assertEquals(Arrays.asList("low0", "low2", "low3"), dispatchedTopics);
+        Assert.assertEquals(1, smallDispatcher.getDroppedMessages().sum());
+    }
+
+    @Test
+    public void shouldNotDropHighPriorityMessagesWhenLaneIsFull() throws InterruptedException {
+        PriorityDispatcher smallDispatcher = new PriorityDispatcher(Executors.defaultThreadFactory(), 1, 2);
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        BiConsumer<String, byte[]> high = smallDispatcher.dispatch(Priority.HIGH, (topic, message) -> {
+            if (topic.equals("high0")) {
+                started.countDown();
+                await(blocking);
+            }
+            dispatchedTopics.add(topic);
+        });
+
+        high.accept("high0", new byte[0]);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        high.accept("high1", new byte[0]);
+        high.accept("high2", new byte[0]);
+        high.accept("high3", new byte[0]);
+        blocking.countDown();
+        smallDispatcher.shutdown();
+
+        Assert.assertEquals(Arrays.asList("high0", "high1", "high2", "high3"), dispatchedTopics);
+        Assert.assertEquals(0, smallDispatcher.getDroppedMessages().sum());
+    }
+
+    @Test
+    public void shouldDispatchHighPriorityWhileSlowListenerHoldsWorker() throws InterruptedException {
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch highDispatched = new CountDownLatch(1);
+        BiConsumer<String, byte[]> low = priorityDispatcher.dispatch(Priority.LOW, (topic, message) -> {
+            started.countDown();
+            await(blocking);
+        });
+        BiConsumer<String, byte[]> high = priorityDispatcher.dispatch(Priority.HIGH, (topic, message) -> highDispatched.countDown());
+
+        low.accept("low", new byte[0]);
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        high.accept("high", new byte[0]);
+
+        Assert.assertTrue(highDispatched.await(1, TimeUnit.SECONDS));
+        blocking.countDown();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
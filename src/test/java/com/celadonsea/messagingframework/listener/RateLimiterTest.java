@@ -0,0 +1,47 @@
+package com.celadonsea.messagingframework.listener;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class RateLimiterTest {
+
+    @Test
+    public void shouldAllowBurstOfOneSecond() {
+        RateLimiter rateLimiter = new RateLimiter(10);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(0, rateLimiter.tryAcquire(now));
+        }
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.tryAcquire(now), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Test
+    public void shouldNotReserveForRefusedCallers() {
+        RateLimiter rateLimiter = new RateLimiter(1000);
+        long now = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.tryAcquire(now);
+        }
+
+        long first = rateLimiter.tryAcquire(now);
+        long second = rateLimiter.tryAcquire(now);
+
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(1), first);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(0, rateLimiter.tryAcquire(now + first));
+    }
+
+    @Test
+    public void shouldRefillAfterIdlePeriod() {
+        RateLimiter rateLimiter = new RateLimiter(10);
+        long now = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            rateLimiter.tryAcquire(now);
+        }
+
+        Assert.assertEquals(0, rateLimiter.tryAcquire(now + TimeUnit.SECONDS.toNanos(5)));
+    }
+}
@@ -0,0 +1,93 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.metrics.ListenerFailures;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class RetryingFilterTest {
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "scheduler"));
+        executor = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "worker"));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunRetryAttemptsOnExecutor() throws InterruptedException {
+        List<String> attemptThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch retried = new CountDownLatch(1);
+        CountDownLatch scheduledTaskRan = new CountDownLatch(1);
+        RetryingFilter retryingFilter = new RetryingFilter((topic, message) -> {
+            attemptThreads.add(Thread.currentThread().getName());
+            if (attemptThreads.size() == 1) {
+                throw new IllegalStateException("first attempt fails");
+            }
+            // a slow attempt must not hold up the other scheduled tasks
+            scheduler.schedule(scheduledTaskRan::countDown, 0, TimeUnit.MILLISECONDS);
+            await(scheduledTaskRan);
+            retried.countDown();
+        }, new RetryPolicy(2, 10, 1, 10), scheduler, executor, null, new ListenerFailures());
+
+        retryingFilter.accept("topic", new byte[0]);
+
+        Assert.assertTrue(retried.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("worker", attemptThreads.get(1));
+    }
+
+    @Test
+    public void shouldRetryThrottledListenerThroughThrottle() throws InterruptedException {
+        ExecutorService throttledExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "throttled"));
+        List<String> attemptThreads = new CopyOnWriteArrayList<>();
+        CountDownLatch retried = new CountDownLatch(1);
+        ListenerFailures listenerFailures = new ListenerFailures();
+        ThrottlingFilter throttlingFilter = new ThrottlingFilter((topic, message) -> {
+            attemptThreads.add(Thread.currentThread().getName());
+            if (attemptThreads.size() == 1) {
+                throw new IllegalStateException("first attempt fails");
+            }
+            retried.countDown();
+        }, null, new AdaptiveConcurrencyLimiter(1), throttledExecutor, scheduler, 10);
+        RetryingFilter retryingFilter = new RetryingFilter(
+            throttlingFilter, new RetryPolicy(2, 10, 1, 10), scheduler, executor, null, listenerFailures);
+
+        try {
+            retryingFilter.accept("topic", new byte[0]);
+
+            Assert.assertTrue(retried.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Arrays.asList("throttled", "throttled"), attemptThreads);
+            Assert.assertEquals(1, listenerFailures.getFailures().sum());
+            Assert.assertEquals(1, listenerFailures.getRetries().sum());
+        } finally {
+            throttledExecutor.shutdownNow();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
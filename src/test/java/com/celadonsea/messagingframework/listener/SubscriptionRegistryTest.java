@@ -0,0 +1,180 @@
+package com.celadonsea.messagingframework.listener;
+
+import com.celadonsea.messagingframework.client.Subscription;
+import com.celadonsea.messagingframework.topic.TopicFormat;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+public class SubscriptionRegistryTest {
+
+    private SubscriptionRegistry subscriptionRegistry;
+
+    private List<String> received;
+
+    @Before
+    public void setup() {
+        subscriptionRegistry = new SubscriptionRegistry(new TopicFormat('/', '+', '#'));
+        received = new ArrayList<>();
+    }
+
+    @Test
+    public void shouldFanOutToAllConsumersOfTheSameFilter() {
+        SubscriptionChange first = subscriptionRegistry.add("device/+/status", consumer("first"));
+        SubscriptionChange second = subscriptionRegistry.add("device/+/status", consumer("second"));
+
+        dispatch("device/1/status");
+
+        Assert.assertEquals(Collections.singletonList("device/+/status"), first.getSubscribed());
+        Assert.assertTrue(second.isEmpty());
+        Assert.assertEquals(Arrays.asList("first", "second"), received);
+    }
+
+    @Test
+    public void shouldInvalidateCachedDispatchOnChange() {
+        BiConsumer<String, byte[]> first = consumer("first");
+        subscriptionRegistry.add("device/+/status", first);
+        List<BiConsumer<String, byte[]>> cached = subscriptionRegistry.match("device/1/status");
+
+        Assert.assertSame(cached, subscriptionRegistry.match("device/1/status"));
+
+        subscriptionRegistry.add("device/1/#", consumer("second"));
+        dispatch("device/1/status");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("first", "second")), new HashSet<>(received));
+
+        received.clear();
+        subscriptionRegistry.remove("device/+/status", first);
+        dispatch("device/1/status");
+        Assert.assertEquals(Collections.singletonList("second"), received);
+    }
+
+    @Test
+    public void shouldMergeOverlappingFilters() {
+        subscriptionRegistry.add("device/1/status", consumer("exact"));
+        subscriptionRegistry.add("device/2/#", consumer("joker"));
+        SubscriptionChange change = subscriptionRegistry.add("device/#", consumer("all"));
+        SubscriptionChange covered = subscriptionRegistry.add("device/+/config", consumer("config"));
+
+        Assert.assertEquals(Arrays.asList("device/1/status", "device/2/#"), change.getUnsubscribed());
+        Assert.assertTrue(covered.isEmpty());
+        Assert.assertEquals(new HashSet<>(Collections.singletonList("device/#")), subscriptionRegistry.getBrokerFilters());
+
+        dispatch("device/1/status");
+        dispatch("device/2/config");
+
+        Assert.assertEquals(Arrays.asList("all", "exact", "all", "joker", "config"), received);
+    }
+
+    @Test
+    public void shouldMatchSingleLevelWildcardOnOneLevelOnly() {
+        subscriptionRegistry.add("device/+", consumer("wildcard"));
+
+        dispatch("device/1/status");
+        dispatch("device/1");
+
+        Assert.assertEquals(Collections.singletonList("wildcard"), received);
+    }
+
+    @Test
+    public void shouldNotMatchSystemTopicsWithWildcards() {
+        subscriptionRegistry.add("#", consumer("all"));
+        subscriptionRegistry.add("$SYS/#", consumer("system"));
+
+        dispatch("$SYS/broker/uptime");
+
+        Assert.assertEquals(Collections.singletonList("system"), received);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("#", "$SYS/#")), subscriptionRegistry.getBrokerFilters());
+    }
+
+    @Test
+    public void shouldUnsubscribeBrokerFilterWithLastConsumer() {
+        BiConsumer<String, byte[]> first = consumer("first");
+        BiConsumer<String, byte[]> second = consumer("second");
+        subscriptionRegistry.add("device/+/status", first);
+        subscriptionRegistry.add("device/+/status", second);
+
+        Assert.assertTrue(subscriptionRegistry.remove("device/+/status", first).isEmpty());
+        SubscriptionChange change = subscriptionRegistry.remove("device/+/status", second);
+
+        dispatch("device/1/status");
+
+        Assert.assertEquals(Collections.singletonList("device/+/status"), change.getUnsubscribed());
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertTrue(subscriptionRegistry.getBrokerFilters().isEmpty());
+    }
+
+    @Test
+    public void shouldResubscribeFiltersCoveredByRemovedFilter() {
+        BiConsumer<String, byte[]> all = consumer("all");
+        subscriptionRegistry.add("device/1/status", consumer("exact"));
+        subscriptionRegistry.add("device/+/status", consumer("wildcard"));
+        subscriptionRegistry.add("device/2/config", consumer("config"));
+        subscriptionRegistry.add("device/#", all);
+
+        SubscriptionChange change = subscriptionRegistry.remove("device/#", all);
+
+        Assert.assertEquals(Arrays.asList("device/+/status", "device/2/config"), change.getSubscribed());
+        Assert.assertEquals(Collections.singletonList("device/#"), change.getUnsubscribed());
+    }
+
+    @Test
+    public void shouldCollectBrokerChangesOfBulkOperation() {
+        SubscriptionChange change = subscriptionRegistry.addAll(Arrays.asList(
+            new Subscription("tenant/1/#", consumer("first")),
+            new Subscription("tenant/2/#", consumer("second")),
+            new Subscription("tenant/#", consumer("all")),
+            new Subscription("tenant/#", consumer("audit"))));
+
+        Assert.assertEquals(Collections.singletonList("tenant/#"), change.getSubscribed());
+        Assert.assertTrue(change.getUnsubscribed().isEmpty());
+        Assert.assertEquals(3, subscriptionRegistry.match("tenant/1/status").size());
+    }
+
+    @Test
+    public void shouldDispatchWhileSubscriptionsChange() throws InterruptedException {
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread subscriber = new Thread(() -> {
+            for (int index = 0; index < 2000; index++) {
+                subscriptionRegistry.add("device/" + index + "/status", (topic, message) -> delivered.incrementAndGet());
+            }
+        });
+        Thread dispatcher = new Thread(() -> {
+            try {
+                for (int index = 0; index < 20000; index++) {
+                    dispatch("device/" + (index % 2000) + "/status");
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        subscriber.start();
+        dispatcher.start();
+        subscriber.join();
+        dispatcher.join();
+
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(2000, subscriptionRegistry.getBrokerFilters().size());
+        dispatch("device/1999/status");
+        Assert.assertTrue(delivered.get() > 0);
+    }
+
+    private BiConsumer<String, byte[]> consumer(String name) {
+        return (topic, message) -> received.add(name);
+    }
+
+    private void dispatch(String topic) {
+        for (BiConsumer<String, byte[]> consumer : subscriptionRegistry.match(topic)) {
+            consumer.accept(topic, new byte[0]);
+        }
+    }
+}
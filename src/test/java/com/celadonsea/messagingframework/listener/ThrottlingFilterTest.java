@@ -0,0 +1,119 @@
+package com.celadonsea.messagingframework.listener;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ThrottlingFilterTest {
+
+    private ExecutorService executor;
+
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldLimitConcurrentCallsWithoutHoldingDispatchingThread() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(10);
+        ThrottlingFilter throttlingFilter = new ThrottlingFilter((topic, message) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            await(blocking);
+            running.decrementAndGet();
+            done.countDown();
+        }, null, new AdaptiveConcurrencyLimiter(3), executor, scheduler, 100);
+
+        for (int i = 0; i < 10; i++) {
+            throttlingFilter.accept("topic", new byte[0]);
+        }
+        Thread.sleep(100);
+
+        Assert.assertEquals(3, running.get());
+        blocking.countDown();
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(3, maxRunning.get());
+    }
+
+    @Test
+    public void shouldDelayMessagesOverRateOnScheduler() throws InterruptedException {
+        AtomicInteger handled = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(7);
+        ThrottlingFilter throttlingFilter = new ThrottlingFilter((topic, message) -> {
+            handled.incrementAndGet();
+            done.countDown();
+        }, new RateLimiter(5), new AdaptiveConcurrencyLimiter(1), executor, scheduler, 100);
+
+        for (int i = 0; i < 7; i++) {
+            throttlingFilter.accept("topic", new byte[0]);
+        }
+        Thread.sleep(100);
+
+        Assert.assertEquals(5, handled.get());
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldDropOldestMessageWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch blocking = new CountDownLatch(1);
+        ThrottlingFilter throttlingFilter = new ThrottlingFilter(
+            (topic, message) -> await(blocking), null, new AdaptiveConcurrencyLimiter(1), executor, scheduler, 2);
+
+        for (int i = 0; i < 5; i++) {
+            throttlingFilter.accept("topic", new byte[0]);
+        }
+        blocking.countDown();
+
+        Assert.assertEquals(2, throttlingFilter.getDroppedMessages().sum());
+    }
+
+    @Test
+    public void shouldReportFailureToLimiterAndFailureHandler() throws Exception {
+        ExecutorService singleExecutor = Executors.newSingleThreadExecutor();
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(10);
+        List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+        ThrottlingFilter throttlingFilter = new ThrottlingFilter((topic, message) -> {
+            throw new IllegalStateException("listener fails");
+        }, null, concurrencyLimiter, singleExecutor, scheduler, 10);
+
+        try {
+            throttlingFilter.accept("topic", new byte[0], failures::add);
+            // the failed message is released before the next task runs
+            singleExecutor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+            Assert.assertEquals(1, failures.size());
+            Assert.assertEquals(9, concurrencyLimiter.getLimit());
+        } finally {
+            singleExecutor.shutdownNow();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.celadonsea.messagingframework.listener;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+public class VirtualThreadDispatcherTest {
+
+    // a platform thread per task stands in for the virtual threads on older Java versions
+    private VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(Executors.newCachedThreadPool());
+
+    @After
+    public void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void shouldLimitThrottledMessagesWithoutHoldingDispatchingThread() throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(20);
+        ThrottlingFilter throttlingFilter = new ThrottlingFilter((topic, message) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            await(blocking);
+            running.decrementAndGet();
+            done.countDown();
+        }, null, new AdaptiveConcurrencyLimiter(3), dispatcher.getExecutor(), scheduler, 100);
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                throttlingFilter.accept("topic", new byte[0]);
+            }
+            // every message was taken while the running ones are still blocked
+            Assert.assertEquals(20, done.getCount());
+            blocking.countDown();
+
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(maxRunning.get() <= 3);
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldCarryTraceToDispatchThread() throws InterruptedException {
+        AtomicReference<MessageTrace> dispatchedTrace = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        BiConsumer<String, byte[]> consumer = dispatcher.dispatch((topic, message) -> {
+            dispatchedTrace.set(MessageTrace.current());
+            done.countDown();
+        });
+        MessageTrace messageTrace = new MessageTrace(1L, 2L, 3L);
+
+        MessageTrace.runWith(messageTrace, () -> consumer.accept("topic", new byte[0]));
+
+        Assert.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assert.assertSame(messageTrace, dispatchedTrace.get());
+    }
+
+    @Test
+    public void shouldRunOnVirtualThread() throws InterruptedException {
+        Assume.assumeTrue(VirtualThreadDispatcher.isSupported());
+        VirtualThreadDispatcher virtualThreadDispatcher = VirtualThreadDispatcher.create("test-virtual-");
+        AtomicReference<String> threadName = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        virtualThreadDispatcher.dispatch((topic, message) -> {
+            threadName.set(Thread.currentThread().getName());
+            done.countDown();
+        }).accept("topic", new byte[0]);
+
+        Assert.assertTrue(done.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(threadName.get().startsWith("test-virtual-"));
+        virtualThreadDispatcher.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.celadonsea.messagingframework.message;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BufferPoolTest {
+
+    @Test
+    public void shouldReuseReleasedBuffer() {
+        byte[] buffer = BufferPool.acquire(4096);
+        BufferPool.release(buffer);
+
+        Assert.assertSame(buffer, BufferPool.acquire(2048));
+        Assert.assertNotSame(buffer, BufferPool.acquire(2048));
+    }
+
+    @Test
+    public void shouldNotRetainLargeBuffer() {
+        byte[] buffer = BufferPool.acquire(1024 * 1024);
+        BufferPool.release(buffer);
+
+        Assert.assertNotSame(buffer, BufferPool.acquire(1024 * 1024));
+    }
+
+    @Test
+    public void shouldKeepLargerBuffer() {
+        byte[] large = BufferPool.acquire(8192);
+        byte[] small = new byte[2048];
+        BufferPool.release(large);
+        BufferPool.release(small);
+
+        Assert.assertSame(large, BufferPool.acquire(4096));
+    }
+}
@@ -0,0 +1,78 @@
+package com.celadonsea.messagingframework.message;
+
+import com.celadonsea.messagingframework.topic.TopicFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+
+public class CompressionCodecTest {
+
+    private static final TopicFormat TOPIC_FORMAT = new TopicFormat('/', '+', '#');
+
+    private static final byte[] MESSAGE = "{\"deviceId\":\"sensor-0042\",\"temperature\":21.5,\"humidity\":40,\"status\":\"OK\"}".getBytes();
+
+    private static final byte[] DICTIONARY = "{\"deviceId\":\"sensor-\",\"temperature\":,\"humidity\":,\"status\":\"OK\"}".getBytes();
+
+    @Test
+    public void shouldCompressAndDecompressWithDictionary() throws DataFormatException {
+        Map<String, byte[]> compressedTopics = new HashMap<>();
+        compressedTopics.put("telemetry/+/plain", new byte[0]);
+        compressedTopics.put("telemetry/+/dictionary", DICTIONARY);
+        CompressionCodec codec = new CompressionCodec(compressedTopics, TOPIC_FORMAT);
+
+        byte[] plain = codec.encode("telemetry/1/plain", MESSAGE);
+        byte[] withDictionary = codec.encode("telemetry/1/dictionary", MESSAGE);
+
+        Assert.assertTrue(withDictionary.length < plain.length);
+        Assert.assertTrue(withDictionary.length < MESSAGE.length);
+        MessageEnvelope envelope = MessageEnvelope.unwrap(withDictionary);
+        Assert.assertTrue(envelope.isCompressed());
+        Assert.assertArrayEquals(MESSAGE, codec.decode(envelope.getPayload()));
+    }
+
+    @Test
+    public void shouldNotCompressOtherTopics() {
+        CompressionCodec codec = new CompressionCodec(
+            Collections.singletonMap("telemetry/#", new byte[0]), TOPIC_FORMAT);
+
+        Assert.assertSame(MESSAGE, codec.encode("command/1", MESSAGE));
+    }
+
+    @Test
+    public void shouldNotCompressWhenMessageDoesNotGetSmaller() {
+        CompressionCodec codec = new CompressionCodec(
+            Collections.singletonMap("telemetry/#", new byte[0]), TOPIC_FORMAT);
+        byte[] message = "x7Q".getBytes();
+
+        Assert.assertSame(message, codec.encode("telemetry/1", message));
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void shouldRejectUnknownDictionary() throws DataFormatException {
+        CompressionCodec codec = new CompressionCodec(
+            Collections.singletonMap("telemetry/#", DICTIONARY), TOPIC_FORMAT);
+        byte[] compressed = codec.encode("telemetry/1", MESSAGE);
+
+        CompressionCodec.NONE.decode(MessageEnvelope.unwrap(compressed).getPayload());
+    }
+
+    @Test(expected = DataFormatException.class)
+    public void shouldRejectMessageInflatingBeyondMaximumSize() throws DataFormatException {
+        CompressionCodec codec = new CompressionCodec(Collections.singletonMap("telemetry/#", new byte[0]), TOPIC_FORMAT, 64 * 1024);
+        byte[] bomb = codec.encode("telemetry/1", new byte[1024 * 1024]);
+
+        codec.decode(MessageEnvelope.unwrap(bomb).getPayload());
+    }
+
+    @Test
+    public void shouldDecodeMessageOfMaximumSize() throws DataFormatException {
+        CompressionCodec codec = new CompressionCodec(Collections.singletonMap("telemetry/#", new byte[0]), TOPIC_FORMAT, 64 * 1024);
+        byte[] compressed = codec.encode("telemetry/1", new byte[64 * 1024]);
+
+        Assert.assertEquals(64 * 1024, codec.decode(MessageEnvelope.unwrap(compressed).getPayload()).length);
+    }
+}
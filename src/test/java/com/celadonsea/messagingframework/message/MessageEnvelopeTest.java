@@ -0,0 +1,64 @@
+package com.celadonsea.messagingframework.message;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageEnvelopeTest {
+
+    @Test
+    public void shouldUnwrapTracedMessage() {
+        byte[] message = MessageEnvelope.wrap("hello".getBytes(), 42L);
+
+        MessageEnvelope envelope = MessageEnvelope.unwrap(message);
+
+        Assert.assertNotNull(envelope);
+        Assert.assertTrue(envelope.isTraced());
+        Assert.assertEquals(42L, envelope.getPublishTimestamp());
+        Assert.assertEquals("hello", new String(envelope.getPayload()));
+    }
+
+    @Test
+    public void shouldUnwrapRequestMessage() {
+        byte[] message = MessageEnvelope.wrapRequest("hello".getBytes(), "replies/client", 7L);
+
+        MessageEnvelope envelope = MessageEnvelope.unwrap(message);
+
+        Assert.assertNotNull(envelope);
+        Assert.assertFalse(envelope.isTraced());
+        Assert.assertTrue(envelope.isCorrelated());
+        Assert.assertEquals(7L, envelope.getCorrelationId());
+        Assert.assertEquals("replies/client", envelope.getReplyTopic());
+        Assert.assertEquals("hello", new String(envelope.getPayload()));
+    }
+
+    @Test
+    public void shouldNotUnwrapPlainMessage() {
+        Assert.assertNull(MessageEnvelope.unwrap("{\"a\":1}".getBytes()));
+        Assert.assertNull(MessageEnvelope.unwrap(new byte[0]));
+        Assert.assertNull(MessageEnvelope.unwrap(new byte[] {0, 'M', 'F', 1, 1, 0, 100}));
+    }
+
+    @Test
+    public void shouldNotUnwrapTruncatedHeader() {
+        // traced, the header ends before the timestamp
+        Assert.assertNull(MessageEnvelope.unwrap(new byte[] {0, 'M', 'F', 1, 1, 0, 7}));
+        // correlated, four bytes of the correlation id only
+        Assert.assertNull(MessageEnvelope.unwrap(new byte[] {0, 'M', 'F', 1, 4, 0, 11, 0, 0, 0, 1}));
+        // reply to, the header ends before the reply topic length
+        Assert.assertNull(MessageEnvelope.unwrap(new byte[] {0, 'M', 'F', 1, 8, 0, 8, 0}));
+        // reply to, the reply topic is longer than the header
+        Assert.assertNull(MessageEnvelope.unwrap(new byte[] {0, 'M', 'F', 1, 8, 0, 11, 0, 9, 'a', 'b', 'c', 'd'}));
+    }
+
+    @Test
+    public void shouldNotUnwrapRequestWithShortenedHeaderLength() {
+        byte[] message = MessageEnvelope.wrapRequest("hello".getBytes(), "replies/client", 7L);
+        int headerLength = message.length - "hello".length();
+
+        for (int length = MessageEnvelope.FIXED_HEADER_LENGTH; length < headerLength; length++) {
+            message[5] = (byte) (length >> 8);
+            message[6] = (byte) length;
+            Assert.assertNull(MessageEnvelope.unwrap(message));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.celadonsea.messagingframework.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReportPercentilesWithinOnePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+
+        Assert.assertEquals(100000, histogram.getCount());
+        Assert.assertEquals(100000, histogram.getMax());
+        Assert.assertEquals(50000.5, histogram.getMean(), 0.001);
+        Assert.assertEquals(50000, histogram.getValueAtPercentile(50), 500);
+        Assert.assertEquals(99000, histogram.getValueAtPercentile(99), 990);
+        Assert.assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void shouldReportSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+
+        Assert.assertEquals(3, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(7, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void shouldReturnZeroWithoutValues() {
+        Assert.assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+    }
+}
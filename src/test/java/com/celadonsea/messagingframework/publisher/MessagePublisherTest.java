@@ -2,9 +2,15 @@ package com.celadonsea.messagingframework.publisher;
 
 import com.celadonsea.messagingframework.client.MessageClient;
 import com.celadonsea.messagingframework.client.TestMessageClient;
+import com.celadonsea.messagingframework.core.Timeout;
+import com.celadonsea.messagingframework.message.MessageEnvelope;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+
 public class MessagePublisherTest {
 
     @Test
@@ -39,4 +45,59 @@ public class MessagePublisherTest {
         Assert.assertEquals(2, ((TestMessageClient) messageClient).getPublishedMessages().get(messageKey).size());
         Assert.assertEquals(1, ((TestMessageClient) messageClient).getPublishedMessages().get(messageKey2).size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldPublishTracedMessage() {
+        MessageClient messageClient = new TestMessageClient(null);
+        messageClient
+            .publisher()
+            .message("Hello traced world".getBytes())
+            .topic("hello/world")
+            .traced()
+            .publish();
+
+        String messageKey = ((TestMessageClient) messageClient).getMessageKey("hello/world", 0);
+        MessageEnvelope envelope = MessageEnvelope.unwrap(((TestMessageClient) messageClient).getPublishedMessages().get(messageKey).get(0));
+
+        Assert.assertNotNull(envelope);
+        Assert.assertTrue(envelope.getPublishTimestamp() > 0);
+        Assert.assertEquals("Hello traced world", new String(envelope.getPayload()));
+    }
+
+    @Test
+    public void shouldPublishScheduledMessage() throws InterruptedException {
+        TestMessageClient messageClient = new TestMessageClient(null);
+        String messageKey = messageClient.getMessageKey("hello/later", 0);
+
+        Timeout scheduled = messageClient.publishAt("hello/later", "Hello later".getBytes(), Instant.now().plusMillis(500));
+        Timeout cancelled = messageClient.publishAt("hello/later", "Hello never".getBytes(), Instant.now().plusMillis(500));
+
+        // a successful cancel means the message was still pending, it can never be published
+        Assert.assertTrue(cancelled.cancel());
+        Assert.assertNull(messageClient.getPublishedMessages().get(messageKey));
+        for (int i = 0; i < 300 && !messageClient.getPublishedMessages().containsKey(messageKey); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(scheduled.isExpired());
+        Assert.assertEquals(1, messageClient.getPublishedMessages().get(messageKey).size());
+        Assert.assertEquals("Hello later", new String(messageClient.getPublishedMessages().get(messageKey).get(0)));
+    }
+
+    @Test
+    public void shouldPublishPeriodicMessageUntilCancelled() throws InterruptedException {
+        TestMessageClient messageClient = new TestMessageClient(null);
+        String messageKey = messageClient.getMessageKey("hello/heartbeat", 0);
+
+        Timeout heartbeat = messageClient.publishEvery("hello/heartbeat", "beat".getBytes(), Duration.ZERO, Duration.ofMillis(10));
+        for (int i = 0; i < 100 && messageClient.getPublishedMessages().getOrDefault(messageKey, Collections.emptyList()).size() < 3; i++) {
+            Thread.sleep(10);
+        }
+        heartbeat.cancel();
+        Thread.sleep(20);
+        int published = messageClient.getPublishedMessages().get(messageKey).size();
+        Thread.sleep(50);
+
+        Assert.assertTrue(published >= 3);
+        Assert.assertEquals(published, messageClient.getPublishedMessages().get(messageKey).size());
+    }
+}
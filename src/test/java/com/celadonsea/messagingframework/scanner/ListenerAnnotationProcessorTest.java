@@ -0,0 +1,83 @@
+package com.celadonsea.messagingframework.scanner;
+
+import com.celadonsea.messagingframework.TestMessagingController;
+import com.celadonsea.messagingframework.annotation.BatchListener;
+import com.celadonsea.messagingframework.annotation.Listener;
+import com.celadonsea.messagingframework.annotation.WindowedListener;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ListenerAnnotationProcessorTest {
+
+    @Test
+    public void shouldFindListenersThroughIndex() {
+        Method[] indexedMethods = ListenerAnnotationProcessor.getIndexedListenerMethods(TestMessagingController.class);
+
+        Assert.assertNotNull(indexedMethods);
+        Assert.assertEquals(scanListenerMethods(TestMessagingController.class), new HashSet<>(Arrays.asList(indexedMethods)));
+    }
+
+    @Test
+    public void shouldFindListenersThroughIndexOfFreshlyLoadedController() throws ClassNotFoundException {
+        // as at startup, the controller and its index come from a class loader with nothing cached
+        Class<?> controllerClass = new ControllerClassLoader().loadClass(TestMessagingController.class.getName());
+
+        Method[] indexedMethods = ListenerAnnotationProcessor.getIndexedListenerMethods(controllerClass);
+
+        Assert.assertNotSame(TestMessagingController.class, controllerClass);
+        Assert.assertNotNull(indexedMethods);
+        Assert.assertEquals(scanListenerMethods(controllerClass), new HashSet<>(Arrays.asList(indexedMethods)));
+    }
+
+    @Test
+    public void shouldFallBackWithoutIndex() {
+        Assert.assertNull(ListenerAnnotationProcessor.getIndexedListenerMethods(String.class));
+    }
+
+    private static Set<Method> scanListenerMethods(Class<?> controllerClass) {
+        Set<Method> methods = new HashSet<>();
+        ReflectionUtils.doWithMethods(controllerClass, methods::add,
+            method -> method.isAnnotationPresent(Listener.class)
+                || method.isAnnotationPresent(BatchListener.class)
+                || method.isAnnotationPresent(WindowedListener.class));
+        return methods;
+    }
+
+    private static class ControllerClassLoader extends ClassLoader {
+
+        ControllerClassLoader() {
+            super(ListenerAnnotationProcessorTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(TestMessagingController.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loadedClass = findLoadedClass(name);
+                if (loadedClass == null) {
+                    try (InputStream classFile = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        if (classFile == null) {
+                            throw new ClassNotFoundException(name);
+                        }
+                        byte[] bytes = StreamUtils.copyToByteArray(classFile);
+                        loadedClass = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return loadedClass;
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.celadonsea.messagingframework.scanner;
+
+import com.celadonsea.messagingframework.message.MessageContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ListenerParametersTest {
+
+    @Test
+    public void shouldRecordNeededArtifacts() {
+        ListenerParameters bodyOnly = new ListenerParameters(Collections.singletonList(
+            new ParameterDescriptor(ParameterDescriptor.PARAMETER_NAME_BODY, String.class)));
+        ListenerParameters withContext = new ListenerParameters(Arrays.asList(
+            new ParameterDescriptor(ParameterDescriptor.PARAMETER_NAME_BODY, String.class),
+            ParameterDescriptor.context()));
+        ListenerParameters withTopicParameter = new ListenerParameters(Arrays.asList(
+            new ParameterDescriptor("deviceId", String.class),
+            ParameterDescriptor.empty()));
+
+        Assert.assertFalse(bodyOnly.isContextNeeded());
+        Assert.assertFalse(bodyOnly.isTopicVariablesNeeded());
+        Assert.assertTrue(withContext.isContextNeeded());
+        Assert.assertFalse(withContext.isTopicVariablesNeeded());
+        Assert.assertFalse(withTopicParameter.isContextNeeded());
+        Assert.assertTrue(withTopicParameter.isTopicVariablesNeeded());
+    }
+
+    @Test
+    public void shouldReuseClearedArguments() {
+        ListenerParameters parameters = new ListenerParameters(Collections.singletonList(ParameterDescriptor.context()));
+
+        Object[] arguments = parameters.acquireArguments();
+        arguments[0] = "message";
+        parameters.releaseArguments(arguments);
+
+        Assert.assertSame(arguments, parameters.acquireArguments());
+        Assert.assertNull(arguments[0]);
+        Assert.assertEquals(0, new ListenerParameters(Collections.emptyList()).acquireArguments().length);
+    }
+
+    @Test
+    public void shouldResolveContextVariablesOnDemand() {
+        AtomicInteger parses = new AtomicInteger();
+        MessageContext messageContext = new MessageContext("device/d1", "device/{deviceId}", () -> {
+            parses.incrementAndGet();
+            return Collections.singletonMap("deviceId", "d1");
+        });
+
+        Assert.assertEquals("device/d1", messageContext.getTopic());
+        Assert.assertEquals(0, parses.get());
+        Assert.assertEquals("d1", messageContext.getParameterMap().get("deviceId"));
+        Assert.assertEquals("d1", messageContext.getParameterMap().get("deviceId"));
+        Assert.assertEquals(1, parses.get());
+    }
+}
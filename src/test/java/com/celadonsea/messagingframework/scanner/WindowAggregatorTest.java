@@ -0,0 +1,96 @@
+package com.celadonsea.messagingframework.scanner;
+
+import com.celadonsea.messagingframework.message.WindowAggregate;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WindowAggregatorTest {
+
+    private final List<WindowAggregate> windows = new ArrayList<>();
+
+    @Test
+    public void shouldAggregateTumblingWindowPerKey() {
+        WindowAggregator windowAggregator = new WindowAggregator(1000, 1000, (topic, message) -> topic, Runnable::run, windows::addAll, 10_500);
+
+        windowAggregator.add("device1", "3".getBytes());
+        windowAggregator.add("device1", "-1.5".getBytes());
+        windowAggregator.add("device2", "7".getBytes());
+        windowAggregator.add("device2", "not a number".getBytes());
+        windowAggregator.tick();
+
+        Assert.assertEquals(2, windows.size());
+        WindowAggregate device1 = windows.get(0).getKey().equals("device1") ? windows.get(0) : windows.get(1);
+        Assert.assertEquals(10_000, device1.getWindowStart());
+        Assert.assertEquals(11_000, device1.getWindowEnd());
+        Assert.assertEquals(2, device1.getCount());
+        Assert.assertEquals(1.5, device1.getSum(), 0);
+        Assert.assertEquals(-1.5, device1.getMin(), 0);
+        Assert.assertEquals(3, device1.getMax(), 0);
+
+        windows.clear();
+        windowAggregator.tick();
+        Assert.assertTrue(windows.isEmpty());
+    }
+
+    @Test
+    public void shouldAggregateSlidingWindow() {
+        WindowAggregator windowAggregator = new WindowAggregator(2000, 1000, (topic, message) -> "", Runnable::run, windows::addAll, 0);
+
+        windowAggregator.add("device", "1".getBytes());
+        windowAggregator.tick();
+        windowAggregator.add("device", "5".getBytes());
+        windowAggregator.tick();
+        windowAggregator.tick();
+        windowAggregator.tick();
+
+        Assert.assertEquals(3, windows.size());
+        Assert.assertEquals(1, windows.get(0).getCount());
+        Assert.assertEquals(2, windows.get(1).getCount());
+        Assert.assertEquals(6, windows.get(1).getSum(), 0);
+        Assert.assertEquals(1, windows.get(2).getCount());
+        Assert.assertEquals(5, windows.get(2).getMax(), 0);
+        Assert.assertEquals(1000, windows.get(2).getWindowStart());
+        Assert.assertEquals(3000, windows.get(2).getWindowEnd());
+    }
+
+    @Test
+    public void shouldDeliverWindowsInOrderWhenHandlerIsSlowerThanSlide() throws InterruptedException {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        List<Long> windowEnds = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch delivered = new CountDownLatch(10);
+        WindowAggregator windowAggregator = new WindowAggregator(1000, 1000, (topic, message) -> "", executor, deliveredWindows -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            deliveredWindows.forEach(window -> windowEnds.add(window.getWindowEnd()));
+            running.decrementAndGet();
+            delivered.countDown();
+        }, 0);
+
+        for (int i = 0; i < 10; i++) {
+            windowAggregator.add("device", "1".getBytes());
+            windowAggregator.tick();
+        }
+
+        Assert.assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assert.assertEquals(1, maxRunning.get());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(Long.valueOf((i + 1) * 1000L), windowEnds.get(i));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.celadonsea.messagingframework.topic;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TopicCacheTest {
+
+    @Test
+    public void shouldReuseResolvedTopic() {
+        TopicCache topicCache = new TopicCache(100);
+        Map<String, String> variables = new HashMap<>();
+        variables.put("deviceId", "d1");
+
+        ResolvedTopic first = topicCache.resolve("device/{deviceId}/status", variables);
+        variables.put("deviceId", "d2");
+        ResolvedTopic second = topicCache.resolve("device/{deviceId}/status", variables);
+        variables.put("deviceId", "d1");
+        ResolvedTopic third = topicCache.resolve("device/{deviceId}/status", variables);
+
+        Assert.assertEquals("device/d1/status", first.getTopic());
+        Assert.assertEquals("device/d2/status", second.getTopic());
+        Assert.assertSame(first, third);
+        Assert.assertEquals(1, topicCache.getHits().sum());
+        Assert.assertEquals(2, topicCache.getMisses().sum());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTopics() {
+        TopicCache topicCache = new TopicCache(32);
+        Map<String, String> variables = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            variables.put("deviceId", "d" + i);
+            topicCache.resolve("device/{deviceId}/status", variables);
+        }
+
+        Assert.assertTrue(topicCache.size() <= 32);
+    }
+
+    @Test
+    public void shouldNotCacheWithoutCapacity() {
+        Map<String, String> variables = new HashMap<>();
+        variables.put("deviceId", "d1");
+
+        ResolvedTopic first = TopicCache.NONE.resolve("device/{deviceId}/status", variables);
+        ResolvedTopic second = TopicCache.NONE.resolve("device/{deviceId}/status", variables);
+
+        Assert.assertEquals("device/d1/status", second.getTopic());
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(0, TopicCache.NONE.size());
+    }
+}
@@ -0,0 +1,34 @@
+package com.celadonsea.messagingframework.topic;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TopicMatcherTest {
+
+    private final TopicFormat topicFormat = new TopicFormat('/', '+', '#');
+
+    @Test
+    public void shouldSplitTopicLevels() {
+        Assert.assertArrayEquals(new String[] {"a", "", "c"}, TopicMatcher.splitLevels("a//c", '/'));
+        Assert.assertArrayEquals(new String[] {"a", "b", "c"}, TopicMatcher.splitLevels("a.b.c", '.'));
+    }
+
+    @Test
+    public void shouldCoverFilters() {
+        Assert.assertTrue(TopicMatcher.covers("a/#", "a", topicFormat));
+        Assert.assertTrue(TopicMatcher.covers("a/#", "a/+/c", topicFormat));
+        Assert.assertTrue(TopicMatcher.covers("a/+/c", "a/b/c", topicFormat));
+        Assert.assertTrue(TopicMatcher.covers("#", "a/#", topicFormat));
+        Assert.assertTrue(TopicMatcher.covers("a/b", "a/b", topicFormat));
+    }
+
+    @Test
+    public void shouldNotCoverFilters() {
+        Assert.assertFalse(TopicMatcher.covers("a/b/c", "a/+/c", topicFormat));
+        Assert.assertFalse(TopicMatcher.covers("a/+", "a/#", topicFormat));
+        Assert.assertFalse(TopicMatcher.covers("a/+", "a/b/c", topicFormat));
+        Assert.assertFalse(TopicMatcher.covers("a/b/c", "a/b", topicFormat));
+        Assert.assertFalse(TopicMatcher.covers("#", "$SYS/#", topicFormat));
+        Assert.assertFalse(TopicMatcher.covers("+/broker", "$SYS/broker", topicFormat));
+    }
+}
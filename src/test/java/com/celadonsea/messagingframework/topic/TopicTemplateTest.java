@@ -0,0 +1,58 @@
+package com.celadonsea.messagingframework.topic;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+public class TopicTemplateTest {
+
+    private static final TopicFormat TOPIC_FORMAT = new TopicFormat('/', '+', '#');
+
+    @Test
+    public void shouldParseAndGenerateTopic() {
+        TopicTemplate source = TopicTemplate.compile("factory/{site}/telemetry/{device}", TOPIC_FORMAT);
+        TopicTemplate target = TopicTemplate.compile("cloud/{site}-{device}/data", TOPIC_FORMAT);
+
+        Map<String, String> variables = source.parse("factory/berlin/telemetry/pump7");
+
+        Assert.assertEquals("factory/+/telemetry/+", source.getSubscription());
+        Assert.assertEquals("berlin", variables.get("site"));
+        Assert.assertEquals("pump7", variables.get("device"));
+        Assert.assertEquals("cloud/{site}-{device}/data", target.generate(variables));
+    }
+
+    @Test
+    public void shouldGenerateVariableLevels() {
+        TopicTemplate source = TopicTemplate.compile("factory/{site}/telemetry/{device}", TOPIC_FORMAT);
+        TopicTemplate target = TopicTemplate.compile("cloud/{device}/{site}", TOPIC_FORMAT);
+
+        Assert.assertEquals("cloud/pump7/berlin", target.generate(source.parse("factory/berlin/telemetry/pump7")));
+        Assert.assertEquals("cloud/{device}/x", target.generate(Collections.singletonMap("site", "x")));
+    }
+
+    @Test
+    public void shouldCaptureMultiLevelWildcard() {
+        TopicTemplate source = TopicTemplate.compile("factory/{site}/#", TOPIC_FORMAT);
+        TopicTemplate target = TopicTemplate.compile("cloud/{site}/{last}", TOPIC_FORMAT);
+
+        Assert.assertEquals(Arrays.asList("site", "last"), source.getVariables());
+        Assert.assertEquals("cloud/berlin/line1/pump7", target.generate(source.parse("factory/berlin/line1/pump7")));
+    }
+
+    @Test
+    public void shouldReplaceMultiLevelWildcardWhenGenerating() {
+        TopicTemplate source = TopicTemplate.compile("factory/#", TOPIC_FORMAT);
+        TopicTemplate target = TopicTemplate.compile("cloud/#", TOPIC_FORMAT);
+
+        Assert.assertEquals("cloud/berlin/pump7", target.generate(source.parse("factory/berlin/pump7")));
+        Assert.assertEquals("cloud/#", target.generate(Collections.emptyMap()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWildcardBeforeLastLevel() {
+        TopicTemplate.compile("factory/#/telemetry", TOPIC_FORMAT);
+    }
+}
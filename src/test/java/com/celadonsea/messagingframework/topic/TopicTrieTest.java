@@ -0,0 +1,33 @@
+package com.celadonsea.messagingframework.topic;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TopicTrieTest {
+
+    private final TopicFormat topicFormat = new TopicFormat('/', '+', '#');
+
+    @Test
+    public void shouldMatchFilters() {
+        TopicTrie<String> trie = new TopicTrie<String>(topicFormat)
+            .add("a/b/c", "exact")
+            .add("a/+/c", "wildcard")
+            .add("a/#", "joker")
+            .add("b/#", "other");
+
+        Assert.assertEquals(Arrays.asList("joker", "exact", "wildcard"), trie.match("a/b/c"));
+        Assert.assertEquals(Collections.singletonList("joker"), trie.match("a"));
+    }
+
+    @Test
+    public void shouldKeepPreviousVersionUnchanged() {
+        TopicTrie<String> first = new TopicTrie<String>(topicFormat).add("a/b", "first");
+        TopicTrie<String> second = first.add("a/b", "second").add("a/+", "third");
+
+        Assert.assertEquals(Collections.singletonList("first"), first.match("a/b"));
+        Assert.assertEquals(Arrays.asList("first", "second", "third"), second.match("a/b"));
+    }
+}